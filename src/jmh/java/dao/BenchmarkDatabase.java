@@ -0,0 +1,79 @@
+package dao;
+
+import model.Person;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The embedded database every benchmark runs against: a private in-memory H2 per forked JVM,
+// seeded with the same synthetic users each time so results are comparable between runs.
+public final class BenchmarkDatabase {
+
+    // Passed to each forked benchmark JVM through @Fork(jvmArgsAppend = ...)
+    public static final String BACKEND = "-Dcsc311.db.backend=h2";
+    public static final String URL = "-Dcsc311.db.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+            // Otherwise H2 hands back the previous result of a repeated query on an unchanged table
+            + ";OPTIMIZE_REUSE_RESULTS=FALSE";
+
+    static final String[] MAJORS = {"CS", "CPIS", "English", "Math", "Biology", "Business", "Art", "History"};
+    static final String[] DEPARTMENTS = {"Computing", "Humanities", "Sciences", "Business School", "Arts"};
+
+    private BenchmarkDatabase() {
+    }
+
+    // Make sure the users table holds at least rows seeded users; benchmarks that add users
+    // remove them again so the table is the same for every iteration.
+    public static void seed(int rows) {
+        // One log line per insert or report would dominate the measurements
+        Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).setLevel(Level.WARNING);
+        DbConnectivityClass db = DbConnectivityClass.cnUtil;
+        DbConnectivityClass.ensureSchema();
+        int existing = (int) db.countUsers();
+        List<Person> batch = new ArrayList<>(1000);
+        for (int i = existing; i < rows; i++) {
+            batch.add(person(i, "seed"));
+            if (batch.size() == 1000 || i == rows - 1) {
+                db.insertUsers(batch);
+                batch.clear();
+            }
+        }
+        DbConnectivityClass.getAggregateCache().invalidateAll();
+    }
+
+    // A user with the given number; the email (and so the row) is unique per prefix and number
+    public static Person person(int n, String emailPrefix) {
+        return new Person("First" + n, "Last" + (n % 997), DEPARTMENTS[n % DEPARTMENTS.length],
+                MAJORS[n % MAJORS.length], emailPrefix + n + "@example.com", "");
+    }
+
+    // Import-format CSV (header plus one line per user)
+    public static String csv(int rows, String emailPrefix) {
+        StringBuilder sb = new StringBuilder(rows * 80);
+        sb.append("first_name,last_name,department,major,email,imageURL\r\n");
+        for (int i = 0; i < rows; i++) {
+            Person p = person(i, emailPrefix);
+            sb.append(p.getFirstName()).append(',').append(p.getLastName()).append(",\"")
+                    .append(p.getDepartment()).append("\",").append(p.getMajor()).append(',')
+                    .append(p.getEmail()).append(",\r\n");
+        }
+        return sb.toString();
+    }
+
+    // Remove the users a benchmark added, leaving the seeded ones
+    public static void deleteByEmailPrefix(String emailPrefix) {
+        try (Connection conn = DbConnectivityClass.getPool().getConnection();
+             PreparedStatement statement = conn.prepareStatement("DELETE FROM users WHERE email LIKE ?")) {
+            statement.setString(1, emailPrefix + "%");
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        DbConnectivityClass.getCache().clear();
+        DbConnectivityClass.getAggregateCache().invalidateAll();
+    }
+}
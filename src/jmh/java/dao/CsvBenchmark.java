@@ -0,0 +1,91 @@
+package dao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CSV import (parsing alone and the full import) and export of the whole table.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.BACKEND, BenchmarkDatabase.URL})
+public class CsvBenchmark {
+
+    private static final String EMAIL_PREFIX = "import";
+
+    @Param({"10000"})
+    int rows;
+
+    private String csv;
+    private Path csvFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkDatabase.seed(rows);
+        csv = BenchmarkDatabase.csv(rows, EMAIL_PREFIX);
+        csvFile = Files.createTempFile("benchmark", ".csv");
+        Files.writeString(csvFile, csv, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    // Each import adds the same users again, so take them out between calls
+    @TearDown(Level.Invocation)
+    public void removeImported() {
+        BenchmarkDatabase.deleteByEmailPrefix(EMAIL_PREFIX);
+    }
+
+    @Benchmark
+    public int parseCsv(Blackhole blackhole) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+        int[] lineNumber = {0};
+        List<String> fields;
+        while ((fields = CsvImporter.readRecord(reader, lineNumber)) != null) {
+            blackhole.consume(fields);
+        }
+        return lineNumber[0];
+    }
+
+    @Benchmark
+    public CsvImporter.ImportResult importFile() throws IOException, SQLException {
+        return new CsvImporter().importFile(csvFile);
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException, SQLException {
+        return new CsvExporter(true).export(Writer.nullWriter());
+    }
+
+    // The same export collected into one String
+    @Benchmark
+    public String stringAllUsers() {
+        return DbConnectivityClass.cnUtil.stringAllUsers();
+    }
+}
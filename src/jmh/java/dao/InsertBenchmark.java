@@ -0,0 +1,68 @@
+package dao;
+
+import model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// insertUser one row at a time versus insertUsers in one batch; both report time per row.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.BACKEND, BenchmarkDatabase.URL})
+public class InsertBenchmark {
+
+    private static final int ROWS_PER_CALL = 100;
+    private static final String EMAIL_PREFIX = "insert";
+
+    private int next;
+
+    @Setup
+    public void seed() {
+        BenchmarkDatabase.seed(10_000);
+    }
+
+    // Keep the table at its seeded size between iterations
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        BenchmarkDatabase.deleteByEmailPrefix(EMAIL_PREFIX);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_CALL)
+    public void insertUserOneByOne() {
+        for (Person person : nextPeople()) {
+            DbConnectivityClass.cnUtil.insertUser(person);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_CALL)
+    public List<Integer> insertUsersBatched() {
+        return DbConnectivityClass.cnUtil.insertUsers(nextPeople());
+    }
+
+    private List<Person> nextPeople() {
+        List<Person> people = new ArrayList<>(ROWS_PER_CALL);
+        for (int i = 0; i < ROWS_PER_CALL; i++) {
+            people.add(BenchmarkDatabase.person(next++, EMAIL_PREFIX));
+        }
+        return people;
+    }
+}
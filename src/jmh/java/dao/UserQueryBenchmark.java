@@ -0,0 +1,61 @@
+package dao;
+
+import model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Reading users: full-table row mapping into Person, paged scans, and GROUP BY aggregates.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.BACKEND, BenchmarkDatabase.URL})
+public class UserQueryBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Setup
+    public void seed() {
+        BenchmarkDatabase.seed(rows);
+    }
+
+    // SELECT * into an ObservableList, as the table used to load
+    @Benchmark
+    public List<Person> getData() {
+        return new DbConnectivityClass().getData();
+    }
+
+    // Keyset pages of 1000 bypassing the cache, as reports and exports read
+    @Benchmark
+    public void forEachUser(Blackhole blackhole) {
+        DbConnectivityClass.cnUtil.forEachUser(1000, blackhole::consume);
+    }
+
+    @Benchmark
+    public Map<String, Long> countByMajor() {
+        DbConnectivityClass.getAggregateCache().invalidateAll();
+        return DbConnectivityClass.cnUtil.countByMajor();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Long>> countByMajorAndDepartment() {
+        DbConnectivityClass.getAggregateCache().invalidateAll();
+        return DbConnectivityClass.cnUtil.countByMajorAndDepartment();
+    }
+}
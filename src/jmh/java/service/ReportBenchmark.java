@@ -0,0 +1,74 @@
+package service;
+
+import dao.BenchmarkDatabase;
+import dao.DbConnectivityClass;
+import model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PDF reports: aggregating loaded rows in Java versus rendering counts from a GROUP BY query,
+// and the paginated full roster.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.BACKEND, BenchmarkDatabase.URL})
+public class ReportBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    private final ReportGenerator generator = new ReportGenerator();
+    private final List<Person> loaded = new ArrayList<>();
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkDatabase.seed(rows);
+        DbConnectivityClass.cnUtil.forEachUser(1000, loaded::add);
+        output = Files.createTempFile("benchmark", ".pdf");
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    // Counts every loaded row per major, then renders the table and chart
+    @Benchmark
+    public long byMajorFromRows() throws IOException {
+        return generator.generate(ReportGenerator.ReportType.BY_MAJOR, loaded::forEach, loaded.size(), output);
+    }
+
+    // Lets the database count, then renders the same report
+    @Benchmark
+    public long byMajorFromGroupBy() throws IOException {
+        DbConnectivityClass.getAggregateCache().invalidateAll();
+        return generator.generateSummary(ReportGenerator.ReportType.BY_MAJOR,
+                DbConnectivityClass.cnUtil.countByMajor(), output);
+    }
+
+    @Benchmark
+    public long fullRosterFromDatabase() throws IOException {
+        return generator.generate(ReportGenerator.ReportType.FULL_ROSTER,
+                action -> DbConnectivityClass.cnUtil.forEachUser(1000, action), rows, output);
+    }
+}
@@ -0,0 +1,75 @@
+package dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Results of aggregate queries (counts, GROUP BY summaries) keyed by query name. Any write to
+// users clears them; a time-to-live bounds staleness from writes made by other clients.
+// A result computed while a write happened is returned but not cached.
+public class AggregateCache {
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long generation;
+    private long hits;
+    private long misses;
+
+    public AggregateCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> query) {
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt <= ttlMillis) {
+                hits++;
+                return (T) entry.value;
+            }
+            misses++;
+            startGeneration = generation;
+        }
+        // Query outside the lock so a slow aggregate does not block the others
+        T value = query.get();
+        synchronized (this) {
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(value, System.currentTimeMillis()));
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AggregateCache{" +
+                "size=" + entries.size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+
+    private static class Entry {
+        final Object value;
+        final long loadedAt;
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dao;
+
+import model.Person;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs UserRepository calls on a dedicated executor so callers (the JavaFX
+// Application Thread in particular) never block on the network.
+public class AsyncDbConnectivity {
+
+    // One worker per pooled connection; more threads would only queue on the pool
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            DbConnectivityClass.POOL_MAX_SIZE, new DbThreadFactory());
+    // Worker running each operation started here, so cancel() can also abort its SQL
+    private static final Map<Future<?>, Thread> runners = new ConcurrentHashMap<>();
+
+    private final UserRepository cnUtil;
+
+    public AsyncDbConnectivity(UserRepository cnUtil) {
+        this.cnUtil = cnUtil;
+    }
+
+    // Executor for longer jobs (e.g. a javafx.concurrent.Task) that should share the DAO threads
+    public static ExecutorService getExecutor() {
+        return executor;
+    }
+
+    // Cancelling the returned future (with or without interruption) stops the work like cancel()
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            return null;
+        });
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled()) {
+                cancel(task);
+            }
+        });
+        execute(task);
+        return result;
+    }
+
+    // Run a FutureTask (e.g. a javafx.concurrent.Task) on the DAO threads; stop it with cancel()
+    public static void execute(FutureTask<?> task) {
+        executor.execute(() -> {
+            runners.put(task, Thread.currentThread());
+            try {
+                task.run();
+            } finally {
+                runners.remove(task);
+                // A cancel that raced with the end of the task must not hit the next one
+                Thread.interrupted();
+            }
+        });
+    }
+
+    // Interrupt the operation's worker and abort the statement it is running: JDBC drivers do
+    // not return from a blocking query on interrupt alone.
+    public static void cancel(Future<?> operation) {
+        Thread runner = runners.get(operation);
+        operation.cancel(true);
+        if (runner != null && runners.get(operation) == runner) {
+            DbConnectivityClass.getPool().cancelStatements(runner);
+        }
+    }
+
+    public CompletableFuture<List<Person>> getPageAfter(int afterId, int limit) {
+        return submit(() -> cnUtil.getPageAfter(afterId, limit));
+    }
+
+    public CompletableFuture<List<Person>> getPageBefore(int beforeId, int limit) {
+        return submit(() -> cnUtil.getPageBefore(beforeId, limit));
+    }
+
+    public CompletableFuture<List<Person>> searchByPrefix(String prefix, int limit) {
+        return submit(() -> cnUtil.searchByPrefix(prefix, limit));
+    }
+
+    // Inserts the person and completes with the same object once its generated id is set
+    public CompletableFuture<Person> insertUser(Person person) {
+        return submit(() -> cnUtil.insertUser(person));
+    }
+
+    public CompletableFuture<List<Integer>> insertUsers(List<Person> people) {
+        return submit(() -> cnUtil.insertUsers(people));
+    }
+
+    private static class DbThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "db-io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dao;
+
+import com.azure.core.exception.AzureException;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobContainerClientBuilder;
+import com.azure.storage.blob.models.BlobErrorCode;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.Block;
+import com.azure.storage.blob.models.BlockListType;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// BlobStore on an Azure Storage container (or the Azurite emulator, given its connection string).
+public class AzureBlobStore implements BlobStore {
+
+    private final BlobContainerClient containerClient;
+
+    public AzureBlobStore(String connectionString, String containerName) {
+        this.containerClient = new BlobContainerClientBuilder()
+                .connectionString(connectionString)
+                .containerName(containerName)
+                .buildClient();
+    }
+
+    @Override
+    public void stageBlock(String blobName, String blockId, byte[] data, int length) throws IOException {
+        try {
+            blockClient(blobName).stageBlock(encode(blockId), new ByteArrayInputStream(data, 0, length), length);
+        } catch (AzureException e) {
+            throw new IOException("Staging block " + blockId + " of " + blobName + " failed", e);
+        }
+    }
+
+    @Override
+    public Set<String> getUncommittedBlockIds(String blobName) throws IOException {
+        Set<String> ids = new HashSet<>();
+        try {
+            // Asked directly: a blob with only staged blocks still answers 404 to exists()
+            for (Block block : blockClient(blobName).listBlocks(BlockListType.UNCOMMITTED).getUncommittedBlocks()) {
+                ids.add(decode(block.getName()));
+            }
+        } catch (BlobStorageException e) {
+            if (e.getErrorCode() == BlobErrorCode.BLOB_NOT_FOUND) {
+                return ids; // nothing staged yet
+            }
+            throw new IOException("Listing blocks of " + blobName + " failed", e);
+        } catch (AzureException e) {
+            throw new IOException("Listing blocks of " + blobName + " failed", e);
+        }
+        return ids;
+    }
+
+    @Override
+    public void commitBlockList(String blobName, List<String> blockIds) throws IOException {
+        List<String> encoded = new ArrayList<>(blockIds.size());
+        for (String blockId : blockIds) {
+            encoded.add(encode(blockId));
+        }
+        try {
+            blockClient(blobName).commitBlockList(encoded, true);
+        } catch (AzureException e) {
+            throw new IOException("Committing " + blobName + " failed", e);
+        }
+    }
+
+    @Override
+    public boolean exists(String blobName) throws IOException {
+        try {
+            return containerClient.getBlobClient(blobName).exists();
+        } catch (AzureException e) {
+            throw new IOException("Checking " + blobName + " failed", e);
+        }
+    }
+
+    @Override
+    public String getUrl(String blobName) {
+        return containerClient.getBlobClient(blobName).getBlobUrl();
+    }
+
+    public BlobContainerClient getContainerClient() {
+        return containerClient;
+    }
+
+    private BlockBlobClient blockClient(String blobName) {
+        return containerClient.getBlobClient(blobName).getBlockBlobClient();
+    }
+
+    private static String encode(String blockId) {
+        return Base64.getEncoder().encodeToString(blockId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String encoded) {
+        return new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+package dao;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+// Block-based blob storage as used by StorageUploader: blocks are staged independently
+// (in any order, in parallel) and only become the blob once the block list is committed.
+// Block ids are plain strings of equal length; implementations encode them as needed.
+public interface BlobStore {
+
+    void stageBlock(String blobName, String blockId, byte[] data, int length) throws IOException;
+
+    // Blocks staged for the blob but not committed yet, i.e. what a failed upload left behind
+    Set<String> getUncommittedBlockIds(String blobName) throws IOException;
+
+    // Make the blob consist of the given blocks, in order, replacing any previous content
+    void commitBlockList(String blobName, List<String> blockIds) throws IOException;
+
+    boolean exists(String blobName) throws IOException;
+
+    String getUrl(String blobName);
+}
@@ -0,0 +1,63 @@
+package dao;
+
+import model.Person;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+// Rows inserted or updated, and ids deleted, since a sync watermark. A full reload carries no
+// rows: the watermark was too old to know every delete, so the caller has to read the table again.
+public class ChangeSet {
+
+    private final List<Person> upserts;
+    private final List<Integer> deletedIds;
+    private final Timestamp watermark;
+    private final boolean fullReload;
+
+    public ChangeSet(List<Person> upserts, List<Integer> deletedIds, Timestamp watermark) {
+        this(upserts, deletedIds, watermark, false);
+    }
+
+    private ChangeSet(List<Person> upserts, List<Integer> deletedIds, Timestamp watermark, boolean fullReload) {
+        this.upserts = upserts;
+        this.deletedIds = deletedIds;
+        this.watermark = watermark;
+        this.fullReload = fullReload;
+    }
+
+    public static ChangeSet fullReload(Timestamp watermark) {
+        return new ChangeSet(List.of(), List.of(), watermark, true);
+    }
+
+    public List<Person> getUpserts() {
+        return Collections.unmodifiableList(upserts);
+    }
+
+    public List<Integer> getDeletedIds() {
+        return Collections.unmodifiableList(deletedIds);
+    }
+
+    // Server time the changes were read at; pass it to the next fetchChangesSince call
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+
+    public boolean isFullReload() {
+        return fullReload;
+    }
+
+    public boolean isEmpty() {
+        return !fullReload && upserts.isEmpty() && deletedIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet{" +
+                "upserts=" + upserts.size() +
+                ", deleted=" + deletedIds.size() +
+                ", watermark=" + watermark +
+                ", fullReload=" + fullReload +
+                '}';
+    }
+}
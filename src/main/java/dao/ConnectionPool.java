@@ -0,0 +1,364 @@
+package dao;
+
+import service.MyLogger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded pool of JDBC connections so DAO calls reuse an open (TLS) session
+// instead of paying a new handshake on every statement.
+public class ConnectionPool {
+
+    // Connections used less than this long ago are handed out without a ping
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+
+    // Most recently returned connection sits at the head, so cold ones age out at the tail
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+    // Connections handed out and not yet returned, for cancelStatements
+    private final Set<LeasedConnection> leases = ConcurrentHashMap.newKeySet();
+
+    // Metrics
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long acquireTimeoutMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Borrow a connection; closing it hands it back to the pool.
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    return lease(entry);
+                }
+                closeQuietly(entry.connection);
+            }
+            return lease(new PooledEntry(openPhysical()));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Open connections up to the minimum size so the first user action does not pay the handshake.
+    public void warmUp() {
+        while (!closed && idle.size() + active.get() < minSize) {
+            try {
+                idle.offerLast(new PooledEntry(openPhysical()));
+            } catch (SQLException e) {
+                MyLogger.makeLog("Connection pool warm-up failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Abort the statements running on connections the thread has borrowed, e.g. because the
+    // operation it works for was cancelled. Returns how many were cancelled.
+    public int cancelStatements(Thread thread) {
+        int cancelled = 0;
+        for (LeasedConnection lease : leases) {
+            if (lease.owner == thread) {
+                cancelled += lease.cancelStatements();
+            }
+        }
+        return cancelled;
+    }
+
+    // Statements the thread's leases still hold on to for cancelStatements
+    int trackedStatementCount(Thread thread) {
+        int count = 0;
+        for (LeasedConnection lease : leases) {
+            if (lease.owner == thread) {
+                count += lease.statements.size();
+            }
+        }
+        return count;
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", max=" + maxSize +
+                ", borrows=" + getBorrowCount() +
+                ", created=" + getCreatedCount() +
+                ", evicted=" + getEvictedCount() +
+                ", timeouts=" + getTimeoutCount() +
+                ", avgWaitMs=" + String.format("%.2f", getAverageWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.2f", getMaxWaitMillis()) +
+                '}';
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsed < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledEntry entry) {
+        active.incrementAndGet();
+        borrowCount.incrementAndGet();
+        LeasedConnection lease = new LeasedConnection(entry);
+        leases.add(lease);
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                lease);
+    }
+
+    private void release(PooledEntry entry) {
+        active.decrementAndGet();
+        try {
+            if (closed || entry.connection.isClosed()) {
+                closeQuietly(entry.connection);
+                return;
+            }
+            // Never hand out a connection with a half-finished transaction
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            closeQuietly(entry.connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // Evict connections idle for too long (keeping minSize) and top the pool back up.
+    private void maintain() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() + active.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastUsed > idleTimeoutMillis && idle.remove(entry)) {
+                closeQuietly(entry.connection);
+                evictedCount.incrementAndGet();
+            }
+        }
+        warmUp();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static class PooledEntry {
+        final Connection connection;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledEntry(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    // Handle given to callers: close() returns the physical connection to the pool once.
+    private class LeasedConnection implements InvocationHandler {
+        private final PooledEntry entry;
+        private final Thread owner = Thread.currentThread();
+        // Open statements created on this lease, so a cancelled operation can abort them
+        private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        LeasedConnection(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        int cancelStatements() {
+            int cancelled = 0;
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                    cancelled++;
+                } catch (SQLException ignored) {
+                    // Already closed or finished
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    // Only one of several concurrent closes may return the connection
+                    if (returned.compareAndSet(false, true)) {
+                        leases.remove(this);
+                        statements.clear();
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || entry.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.connection + "]";
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(entry.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement statement) {
+                        // Forget the closed ones, so a long lease holds only what is still open
+                        statements.removeIf(ConnectionPool::isClosed);
+                        statements.add(statement);
+                    }
+                    return result;
+            }
+        }
+    }
+}
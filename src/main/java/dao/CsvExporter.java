@@ -0,0 +1,137 @@
+package dao;
+
+import service.MyLogger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+// Writes the users table as RFC 4180 CSV straight from a forward-only ResultSet,
+// so memory use does not depend on the number of rows.
+public class CsvExporter {
+
+    // Same columns and order that CsvImporter reads back
+    public static final String IMPORT_HEADER = "First Name,Last Name,Department,Major,Email,Image URL";
+    public static final String FULL_HEADER = "id,firstName,lastName,department,major,email,imageURL";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+    private static final String LINE_END = "\r\n";
+
+    public interface ProgressListener {
+        void progress(long rowsWritten, long totalRows);
+    }
+
+    private final boolean includeId;
+    private ProgressListener progressListener = (rowsWritten, totalRows) -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+
+    public CsvExporter(boolean includeId) {
+        this.includeId = includeId;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    // Export to a file through a buffered NIO channel; returns the number of rows written.
+    // Rows go to a temporary file in the same directory that replaces the target only once
+    // complete, so a failed or cancelled export leaves an existing file as it was.
+    public long exportToFile(Path file) throws IOException, SQLException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            long rows;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+                rows = export(writer);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Throws CancellationException if the cancellation check fires before the last row
+
+    public long export(Writer writer) throws IOException, SQLException {
+        DbConnectivityClass.ensureSchema();
+        long start = System.nanoTime();
+        long rows = 0;
+        try (Connection conn = DbConnectivityClass.getPool().getConnection()) {
+            long total = countUsers(conn);
+            writer.write(includeId ? FULL_HEADER : IMPORT_HEADER);
+            writer.write(LINE_END);
+
+            try (Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Stream rows instead of buffering the result (one at a time on MySQL Connector/J)
+                statement.setFetchSize(DbConnectivityClass.getBackend().getStreamingFetchSize());
+                try (ResultSet resultSet = statement.executeQuery(
+                        "SELECT id, first_name, last_name, department, major, email, imageURL FROM users ORDER BY id")) {
+                    while (resultSet.next()) {
+                        if (cancelled.getAsBoolean()) {
+                            throw new CancellationException("CSV export cancelled");
+                        }
+                        if (includeId) {
+                            writer.write(Integer.toString(resultSet.getInt(1)));
+                            writer.write(',');
+                        }
+                        for (int column = 2; column <= 7; column++) {
+                            if (column > 2) {
+                                writer.write(',');
+                            }
+                            writer.write(quote(resultSet.getString(column)));
+                        }
+                        writer.write(LINE_END);
+                        if (++rows % PROGRESS_EVERY_ROWS == 0) {
+                            progressListener.progress(rows, total);
+                        }
+                    }
+                }
+            }
+            progressListener.progress(rows, total);
+        }
+        writer.flush();
+        MyLogger.makeLog("CSV export: " + rows + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return rows;
+    }
+
+    // RFC 4180: quote fields containing a comma, quote or line break, doubling embedded quotes.
+    public static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    private static long countUsers(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+}
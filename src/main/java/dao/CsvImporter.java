@@ -0,0 +1,364 @@
+package dao;
+
+import model.Person;
+import service.MyLogger;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+// Streams a CSV file of users (first name, last name, department, major, email, image URL)
+// into the users table: rows are validated as they are read and inserted in JDBC batches
+// inside a single transaction, with ids taken from the batch's generated keys.
+public class CsvImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("csc311.import.batchSize", 500);
+
+    private static final int FIELD_COUNT = 6;
+    // First name, last name, department, major and email
+    private static final int REQUIRED_FIELD_COUNT = 5;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
+
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes, int inserted, int rejected, double rowsPerSecond);
+    }
+
+    private final int batchSize;
+    private ProgressListener progressListener = (bytesRead, totalBytes, inserted, rejected, rowsPerSecond) -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+
+    public CsvImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvImporter(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Checked between batches; a cancelled import is rolled back completely.
+    public void setCancellationCheck(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public ImportResult importFile(Path file) throws IOException, SQLException {
+        DbConnectivityClass.ensureSchema();
+        long totalBytes = Files.size(file);
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8));
+             Connection conn = DbConnectivityClass.getPool().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(DbConnectivityClass.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Set<String> seenEmails = new HashSet<>();
+                List<Person> batch = new ArrayList<>(batchSize);
+                List<Integer> batchLines = new ArrayList<>(batchSize);
+                int[] lineNumber = {0};
+                List<String> fields;
+
+                while ((fields = readRecord(reader, lineNumber)) != null) {
+                    int line = lineNumber[0];
+                    if (line == 1 && isHeader(fields)) {
+                        continue;
+                    }
+                    String reason = validate(fields, seenEmails);
+                    if (reason != null) {
+                        result.rejects.add(new Reject(line, String.join(",", fields), reason));
+                        continue;
+                    }
+                    batch.add(new Person(fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim(),
+                            fields.get(3).trim(), fields.get(4).trim(), fields.get(5).trim()));
+                    batchLines.add(line);
+
+                    if (batch.size() == batchSize) {
+                        if (cancelled.getAsBoolean()) {
+                            break;
+                        }
+                        flush(conn, insert, batch, batchLines, result);
+                        report(counter.count, totalBytes, result, start);
+                    }
+                }
+
+                if (cancelled.getAsBoolean()) {
+                    conn.rollback();
+                    result.cancelled = true;
+                    result.insertedCount = 0;
+                } else {
+                    flush(conn, insert, batch, batchLines, result);
+                    conn.commit();
+                    if (result.insertedCount > 0) {
+                        DbConnectivityClass.markHasRegisteredUsers();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        result.elapsedNanos = System.nanoTime() - start;
+        report(totalBytes, totalBytes, result, start);
+        MyLogger.makeLog("CSV import: " + result);
+        return result;
+    }
+
+    // Execute one batch; if the server rejects it (e.g. duplicate email) retry the rows one by one
+    // so only the offending rows are reported instead of failing the whole import.
+    private void flush(Connection conn, PreparedStatement insert, List<Person> batch, List<Integer> batchLines,
+                       ImportResult result) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            for (Person person : batch) {
+                DbConnectivityClass.bindPerson(insert, person);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                for (Person person : batch) {
+                    if (keys.next()) {
+                        person.setId(keys.getInt(1));
+                    }
+                }
+            }
+            result.insertedCount += batch.size();
+        } catch (BatchUpdateException e) {
+            insert.clearBatch();
+            conn.rollback(savepoint);
+            for (int i = 0; i < batch.size(); i++) {
+                insertSingle(conn, insert, batch.get(i), batchLines.get(i), result);
+            }
+        } finally {
+            conn.releaseSavepoint(savepoint);
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private void insertSingle(Connection conn, PreparedStatement insert, Person person, int line,
+                              ImportResult result) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            DbConnectivityClass.bindPerson(insert, person);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                if (keys.next()) {
+                    person.setId(keys.getInt(1));
+                }
+            }
+            result.insertedCount++;
+        } catch (SQLException e) {
+            conn.rollback(savepoint);
+            result.rejects.add(new Reject(line, person.getEmail(), e.getMessage()));
+        } finally {
+            conn.releaseSavepoint(savepoint);
+        }
+    }
+
+    private void report(long bytesRead, long totalBytes, ImportResult result, long start) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double rowsPerSecond = seconds > 0 ? result.insertedCount / seconds : 0;
+        progressListener.progress(bytesRead, totalBytes, result.insertedCount, result.rejects.size(), rowsPerSecond);
+    }
+
+    // Returns the reason a row cannot be imported, or null if it is valid.
+    private static String validate(List<String> fields, Set<String> seenEmails) {
+        if (fields.size() != FIELD_COUNT) {
+            return "Expected " + FIELD_COUNT + " fields but found " + fields.size();
+        }
+        // The image URL is optional
+        for (int i = 0; i < REQUIRED_FIELD_COUNT; i++) {
+            if (fields.get(i).isBlank()) {
+                return "Blank field";
+            }
+        }
+        String email = fields.get(4).trim();
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
+            return "Invalid email: " + email;
+        }
+        if (!seenEmails.add(email.toLowerCase())) {
+            return "Duplicate email in file: " + email;
+        }
+        return null;
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        String first = fields.get(0).replace(" ", "");
+        return first.equalsIgnoreCase("firstName") || first.equalsIgnoreCase("first_name");
+    }
+
+    // Read one CSV record (RFC 4180: quoted fields may contain commas, doubled quotes and line breaks).
+    static List<String> readRecord(BufferedReader reader, int[] lineNumber) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber[0]++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Quoted field continues on the next physical line
+                String next = reader.readLine();
+                if (next == null) {
+                    break;
+                }
+                lineNumber[0]++;
+                field.append('\n');
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static class Reject {
+        private final int lineNumber;
+        private final String content;
+        private final String reason;
+
+        Reject(int lineNumber, String content, String reason) {
+            this.lineNumber = lineNumber;
+            this.content = content;
+            this.reason = reason;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + reason;
+        }
+    }
+
+    public static class ImportResult {
+        private int insertedCount;
+        private final List<Reject> rejects = new ArrayList<>();
+        private long elapsedNanos;
+        private boolean cancelled;
+
+        public List<Reject> getRejects() {
+            return Collections.unmodifiableList(rejects);
+        }
+
+        public int getInsertedCount() {
+            return insertedCount;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : insertedCount / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return "ImportResult{" +
+                    "inserted=" + insertedCount +
+                    ", rejected=" + rejects.size() +
+                    ", elapsedMs=" + getElapsedMillis() +
+                    ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+                    ", cancelled=" + cancelled +
+                    '}';
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+// Where the users table lives. Selected with -Dcsc311.db.backend=mysql (the default, the shared
+// server) or -Dcsc311.db.backend=h2 (an embedded file database for offline use, tests and
+// benchmarks). -Dcsc311.db.url, .username and .password override the backend's defaults.
+// Both backends run the same SQL; H2 is opened in its MySQL compatibility mode.
+public interface DatabaseBackend {
+
+    String getName();
+
+    String getUrl();
+
+    String getUsername();
+
+    String getPassword();
+
+    // Create the database itself if the server needs that before connecting to it
+    void createDatabase() throws SQLException;
+
+    // Fetch size that makes the driver stream a large result instead of buffering it
+    int getStreamingFetchSize();
+
+    static DatabaseBackend fromConfig() {
+        String name = System.getProperty("csc311.db.backend", "mysql").toLowerCase(Locale.ROOT);
+        String url = System.getProperty("csc311.db.url");
+        String username = System.getProperty("csc311.db.username");
+        String password = System.getProperty("csc311.db.password");
+        switch (name) {
+            case "mysql":
+                return new MySqlBackend(url, username, password);
+            case "h2":
+                return new H2Backend(url, username, password);
+            default:
+                throw new IllegalArgumentException("Unknown csc311.db.backend: " + name);
+        }
+    }
+}
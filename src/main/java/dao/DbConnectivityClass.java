@@ -5,32 +5,55 @@ import javafx.collections.ObservableList;
 import model.Person;
 import service.MyLogger;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-import static viewmodel.MainApplication.cnUtil;
+public class DbConnectivityClass implements UserRepository {
 
-public class DbConnectivityClass {
+    MyLogger lg = new MyLogger();
 
-    private List<Person> users;
+    // MySQL server or embedded H2 file, chosen with -Dcsc311.db.backend
+    private static final DatabaseBackend backend = DatabaseBackend.fromConfig();
 
-    final static String DB_NAME = "CSC311_BD_TEMP";
-    MyLogger lg = new MyLogger();
-    final static String SQL_SERVER_URL = "jdbc:mysql://maradcsc11.mysql.database.azure.com"; // update this server name
-    final static String DB_URL = "jdbc:mysql://maradcsc11.mysql.database.azure.com/" + DB_NAME; // update this database name
-    final static String USERNAME = "marac"; // update this username
-    final static String PASSWORD = "Forcsc311"; // update this password
+    // Pool settings, overridable with -Dcsc311.pool.* system properties
+    final static int POOL_MIN_SIZE = Integer.getInteger("csc311.pool.minSize", 1);
+    final static int POOL_MAX_SIZE = Integer.getInteger("csc311.pool.maxSize", 8);
+    final static long POOL_IDLE_TIMEOUT_MS = Long.getLong("csc311.pool.idleTimeoutMs", 300_000L);
+    final static long POOL_ACQUIRE_TIMEOUT_MS = Long.getLong("csc311.pool.acquireTimeoutMs", 10_000L);
+
+    // Shared by every DbConnectivityClass instance so connections are reused across screens
+    private static final ConnectionPool pool = new ConnectionPool(backend.getUrl(), backend.getUsername(), backend.getPassword(),
+            POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_ACQUIRE_TIMEOUT_MS);
+
+    // Cache settings, overridable with -Dcsc311.cache.* system properties
+    final static int CACHE_MAX_ENTRIES = Integer.getInteger("csc311.cache.maxEntries", 20_000);
+    final static long CACHE_TTL_MS = Long.getLong("csc311.cache.ttlMs", 120_000L);
+
+    // Shared read-through cache; insertUser, editUser and deleteRecord write through it
+    private static final PersonCache cache = new PersonCache(CACHE_MAX_ENTRIES, CACHE_TTL_MS);
+    // Counts and GROUP BY summaries; every write through this class clears them
+    private static final AggregateCache aggregates = new AggregateCache(CACHE_TTL_MS);
+
+    // Deletes are remembered this long for delta sync, overridable with -Dcsc311.sync.tombstoneRetentionMs.
+    // A client whose watermark is older may have missed deletes and has to reload.
+    final static long TOMBSTONE_RETENTION_MS = Long.getLong("csc311.sync.tombstoneRetentionMs", 7 * 24 * 3_600_000L);
 
     private final ObservableList<Person> data = FXCollections.observableArrayList();
 
     // Method to retrieve all data from the database and store it into an observable list to use in the GUI tableview.
     public ObservableList<Person> getData() {
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "SELECT * FROM users ";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        ensureSchema();
+        String sql = "SELECT * FROM users ";
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
             if (!resultSet.isBeforeFirst()) {
                 lg.makeLog("No data");
             }
@@ -44,63 +67,289 @@ public class DbConnectivityClass {
                 String imageURL = resultSet.getString("imageURL");
                 data.add(new Person(id, first_name, last_name, department, major, email, imageURL));
             }
-            preparedStatement.close();
-            conn.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return data;
     }
 
-    public boolean connectToDatabase() {
-        boolean hasRegistredUsers = false;
-        try {
-            // First, connect to MYSQL server and create the database if not created
-            Connection conn = DriverManager.getConnection(SQL_SERVER_URL, USERNAME, PASSWORD);
-            Statement statement = conn.createStatement();
-            statement.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME + "");
-            statement.close();
-            conn.close();
-
-            // Second, connect to the database and create the table "users" if not created
-            conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            statement = conn.createStatement();
-            String sql = "CREATE TABLE IF NOT EXISTS users (" +
-                    "id INT(10) NOT NULL PRIMARY KEY AUTO_INCREMENT, " +
-                    "first_name VARCHAR(200) NOT NULL, " +
-                    "last_name VARCHAR(200) NOT NULL, " +
-                    "department VARCHAR(200), " +
-                    "major VARCHAR(200), " +
-                    "email VARCHAR(200) NOT NULL UNIQUE, " +
-                    "imageURL VARCHAR(200))";
-            statement.executeUpdate(sql);
-
-            // Check if we have users in the table "users"
-            statement = conn.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM users");
+    // Keyset pagination: up to "limit" users with id greater than afterId, in id order.
+    // Pass 0 for the first page.
+    public List<Person> getPageAfter(int afterId, int limit) {
+        List<Person> page = cache.getPage(true, afterId, limit);
+        if (page == null) {
+            page = queryPageAfter(afterId, limit);
+            cache.putPage(true, afterId, limit, page);
+        }
+        return page;
+    }
 
-            if (resultSet.next()) {
-                int numUsers = resultSet.getInt(1);
-                if (numUsers > 0) {
-                    hasRegistredUsers = true;
+    // Keyset pagination backwards: up to "limit" users with id less than beforeId, in id order.
+    public List<Person> getPageBefore(int beforeId, int limit) {
+        List<Person> page = cache.getPage(false, beforeId, limit);
+        if (page == null) {
+            page = queryPageBefore(beforeId, limit);
+            cache.putPage(false, beforeId, limit, page);
+        }
+        return page;
+    }
+
+    // Read-through lookup of a single user; null if there is no such id.
+    public Person findById(int id) {
+        Person cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        ensureSchema();
+        try (Connection conn = pool.getConnection()) {
+            Person person = findById(conn, id);
+            if (person != null) {
+                cache.put(person);
+            }
+            return person;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private Person findById(Connection conn, int id) throws SQLException {
+        try (PreparedStatement preparedStatement = conn.prepareStatement(FIND_BY_ID_SQL)) {
+            preparedStatement.setInt(1, id);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? mapPerson(resultSet) : null;
+            }
+        }
+    }
+
+    private List<Person> queryPageAfter(int afterId, int limit) {
+        ensureSchema();
+        String sql = PAGE_AFTER_SQL;
+        List<Person> page = new ArrayList<>(limit);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setInt(1, afterId);
+            preparedStatement.setInt(2, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    page.add(mapPerson(resultSet));
                 }
             }
+        } catch (SQLException e) {
+            // Also how a cancelled query ends; an empty page must not be cached
+            throw new RuntimeException(e);
+        }
+        return page;
+    }
 
-            statement.close();
-            conn.close();
+    private List<Person> queryPageBefore(int beforeId, int limit) {
+        ensureSchema();
+        String sql = PAGE_BEFORE_SQL;
+        List<Person> page = new ArrayList<>(limit);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setInt(1, beforeId);
+            preparedStatement.setInt(2, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    page.add(mapPerson(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        Collections.reverse(page);
+        return page;
+    }
 
-        } catch (Exception e) {
+    // Up to "limit" users whose last name or email starts with prefix, for searching rows the table
+    // has not loaded. Both columns are indexed, so each half is a range scan; LIKE wildcards in the
+    // prefix are matched literally.
+    public List<Person> searchByPrefix(String prefix, int limit) {
+        ensureSchema();
+        String pattern = escapeLike(prefix) + "%";
+        Map<Integer, Person> found = new LinkedHashMap<>();
+        try (Connection conn = pool.getConnection()) {
+            for (String sql : List.of(LAST_NAME_PREFIX_SQL, EMAIL_PREFIX_SQL)) {
+                try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+                    preparedStatement.setString(1, pattern);
+                    preparedStatement.setInt(2, limit);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next() && found.size() < limit) {
+                            Person person = mapPerson(resultSet);
+                            found.putIfAbsent(person.getId(), person);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Prefix search for " + prefix + " failed", e);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Visit every user page by page, so callers never hold the whole table in memory.
+    // Bypasses the cache so a full pass does not evict the rows the table is showing.
+    public void forEachUser(int pageSize, Consumer<Person> action) {
+        int lastId = 0;
+        List<Person> page;
+        do {
+            page = queryPageAfter(lastId, pageSize);
+            for (Person person : page) {
+                action.accept(person);
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    public long countUsers() {
+        return aggregates.get("count", () -> {
+            ensureSchema();
+            try (Connection conn = pool.getConnection();
+                 Statement statement = conn.createStatement();
+                 ResultSet resultSet = statement.executeQuery(COUNT_SQL)) {
+                return resultSet.next() ? resultSet.getLong(1) : 0L;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    // Number of users per major, in major order; NULL and blank majors are counted under ""
+    public Map<String, Long> countByMajor() {
+        return aggregates.get("byMajor", () -> countGroupedBy("major"));
+    }
+
+    public Map<String, Long> countByDepartment() {
+        return aggregates.get("byDepartment", () -> countGroupedBy("department"));
+    }
+
+    // Number of users per major and, within it, per department
+    public Map<String, Map<String, Long>> countByMajorAndDepartment() {
+        return aggregates.get("byMajorAndDepartment", () -> {
+            ensureSchema();
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            try (Connection conn = pool.getConnection();
+                 Statement statement = conn.createStatement();
+                 ResultSet resultSet = statement.executeQuery(BY_MAJOR_AND_DEPARTMENT_SQL)) {
+                while (resultSet.next()) {
+                    counts.computeIfAbsent(groupKey(resultSet.getString(1)), k -> new LinkedHashMap<>())
+                            .merge(groupKey(resultSet.getString(2)), resultSet.getLong(3), Long::sum);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return Collections.unmodifiableMap(counts);
+        });
+    }
+
+    public static AggregateCache getAggregateCache() {
+        return aggregates;
+    }
+
+    // Grouping by the bare column lets MySQL read the (major, department) and
+    // (department, major) indexes in order; NULL and blank are merged here instead.
+    private Map<String, Long> countGroupedBy(String column) {
+        ensureSchema();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery(groupBySql(column))) {
+            while (resultSet.next()) {
+                counts.merge(groupKey(resultSet.getString(1)), resultSet.getLong(2), Long::sum);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private static String groupKey(String value) {
+        return value == null || value.isBlank() ? "" : value;
+    }
+
+    private Person mapPerson(ResultSet resultSet) throws SQLException {
+        Person person = new Person(resultSet.getInt("id"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getString("department"),
+                resultSet.getString("major"),
+                resultSet.getString("email"),
+                resultSet.getString("imageURL"));
+        person.setVersion(resultSet.getInt("version"));
+        return person;
+    }
+
+    // Schema state shared by every instance; the bootstrap below runs once per application start
+    private static volatile boolean schemaReady = false;
+    private static volatile Boolean hasRegisteredUsers = null; // null = not known yet
+    private static final Object schemaLock = new Object();
+
+    // Returns whether the table "users" has any rows, bootstrapping the schema the first time.
+    public boolean connectToDatabase() {
+        if (!ensureSchema()) {
+            return false;
+        }
+        Boolean cached = hasRegisteredUsers;
+        if (cached != null) {
+            return cached;
+        }
+        boolean hasUsers = false;
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 1 FROM users LIMIT 1")) {
+            hasUsers = resultSet.next();
+            hasRegisteredUsers = hasUsers;
+        } catch (SQLException e) {
             e.printStackTrace();
         }
-        return hasRegistredUsers;
+        return hasUsers;
+    }
+
+    // Called after rows were inserted outside insertUser (e.g. a batched import)
+    static void markHasRegisteredUsers() {
+        hasRegisteredUsers = true;
+        cache.invalidatePartialPages();
+        aggregates.invalidateAll();
+    }
+
+    // Create the database and run pending schema migrations; cheap no-op once the schema is ready.
+    public static boolean ensureSchema() {
+        if (schemaReady) {
+            return true;
+        }
+        synchronized (schemaLock) {
+            if (schemaReady) {
+                return true;
+            }
+            try {
+                // First, create the database if the backend needs that
+                backend.createDatabase();
+
+                // Second, bring the tables up to the latest schema version
+                try (Connection conn = pool.getConnection()) {
+                    int version = new SchemaMigrator().migrate(conn);
+                    MyLogger.makeLog("Database schema ready at version " + version + " on " + backend);
+                }
+                schemaReady = true;
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return schemaReady;
+        }
     }
 
     public void queryUserByLastName(String name) {
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "SELECT * FROM users WHERE last_name = ?";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+        ensureSchema();
+        String sql = BY_LAST_NAME_SQL;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
             preparedStatement.setString(1, name);
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -113,20 +362,17 @@ public class DbConnectivityClass {
 
                 lg.makeLog("ID: " + id + ", Name: " + first_name + " " + last_name + ", Major: " + major + ", Department: " + department);
             }
-            preparedStatement.close();
-            conn.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public void listAllUsers() {
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "SELECT * FROM users ";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        ensureSchema();
+        String sql = "SELECT * FROM users ";
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
                 int id = resultSet.getInt("id");
@@ -138,42 +384,118 @@ public class DbConnectivityClass {
 
                 lg.makeLog("ID: " + id + ", Name: " + first_name + " " + last_name + ", Department: " + department + ", Major: " + major + ", Email: " + email);
             }
-            preparedStatement.close();
-            conn.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public void insertUser(Person person) {
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "INSERT INTO users (first_name, last_name, department, major, email, imageURL) VALUES (?, ?, ?, ?, ?, ?)";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
-            preparedStatement.setString(1, person.getFirstName());
-            preparedStatement.setString(2, person.getLastName());
-            preparedStatement.setString(3, person.getDepartment());
-            preparedStatement.setString(4, person.getMajor());
-            preparedStatement.setString(5, person.getEmail());
-            preparedStatement.setString(6, person.getImageURL());
+    // Statements run by this class, also checked by QueryPlanChecker
+    static final String FIND_BY_ID_SQL = "SELECT * FROM users WHERE id = ?";
+    static final String PAGE_AFTER_SQL = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    static final String PAGE_BEFORE_SQL = "SELECT * FROM users WHERE id < ? ORDER BY id DESC LIMIT ?";
+    static final String BY_LAST_NAME_SQL = "SELECT * FROM users WHERE last_name = ?";
+    static final String LAST_NAME_PREFIX_SQL = "SELECT * FROM users WHERE last_name LIKE ? ORDER BY last_name, first_name LIMIT ?";
+    static final String EMAIL_PREFIX_SQL = "SELECT * FROM users WHERE email LIKE ? ORDER BY email LIMIT ?";
+    static final String UPDATE_SQL = "UPDATE users SET first_name=?, last_name=?, department=?, major=?, email=?, imageURL=?, " +
+            "version=version+1 WHERE id=? AND version=?";
+    static final String DELETE_SQL = "DELETE FROM users WHERE id=?";
+    static final String ID_BY_EMAIL_SQL = "SELECT id FROM users WHERE email=?";
+    static final String CHANGED_SINCE_SQL = "SELECT * FROM users WHERE last_modified >= ? ORDER BY id";
+    static final String TOMBSTONES_SINCE_SQL = "SELECT id FROM users_tombstones WHERE deleted_at >= ?";
+    static final String PURGE_TOMBSTONES_SQL = "DELETE FROM users_tombstones WHERE deleted_at < ?";
+    static final String COUNT_SQL = "SELECT COUNT(*) FROM users";
+    static final String BY_MAJOR_AND_DEPARTMENT_SQL = "SELECT major, department, COUNT(*) FROM users " +
+            "GROUP BY major, department ORDER BY major, department";
+
+    // column is one of our own column names, never user input
+    static String groupBySql(String column) {
+        return "SELECT " + column + ", COUNT(*) FROM users GROUP BY " + column + " ORDER BY " + column;
+    }
+
+    static final String INSERT_SQL = "INSERT INTO users (first_name, last_name, department, major, email, imageURL) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Insert the person and return it with the AUTO_INCREMENT id read back on the same connection.
+    // A failed insert (e.g. a duplicate email) throws.
+    public Person insertUser(Person person) {
+        ensureSchema();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindPerson(preparedStatement, person);
             int row = preparedStatement.executeUpdate();
             if (row > 0) {
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        person.setId(keys.getInt(1));
+                    }
+                }
                 lg.makeLog("A new user was inserted successfully.");
+                hasRegisteredUsers = true;
+                cache.put(person);
+                cache.invalidatePartialPages();
+                aggregates.invalidateAll();
             }
-            preparedStatement.close();
-            conn.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Inserting " + person.getEmail() + " failed", e);
         }
+        return person;
     }
 
-    public void editUser(int id, Person p) {
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "UPDATE users SET first_name=?, last_name=?, department=?, major=?, email=?, imageURL=? WHERE id=?";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+    // Insert all people in one batch and transaction; returns their generated ids in the same order.
+    public List<Integer> insertUsers(List<Person> people) {
+        ensureSchema();
+        List<Integer> ids = new ArrayList<>(people.size());
+        if (people.isEmpty()) {
+            return ids;
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Person person : people) {
+                    bindPerson(preparedStatement, person);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    for (Person person : people) {
+                        if (keys.next()) {
+                            person.setId(keys.getInt(1));
+                            ids.add(person.getId());
+                        }
+                    }
+                }
+                conn.commit();
+                hasRegisteredUsers = true;
+                cache.putAll(people);
+                cache.invalidatePartialPages();
+                aggregates.invalidateAll();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        lg.makeLog(ids.size() + " users were inserted in one batch.");
+        return ids;
+    }
+
+    static void bindPerson(PreparedStatement preparedStatement, Person person) throws SQLException {
+        preparedStatement.setString(1, person.getFirstName());
+        preparedStatement.setString(2, person.getLastName());
+        preparedStatement.setString(3, person.getDepartment());
+        preparedStatement.setString(4, person.getMajor());
+        preparedStatement.setString(5, person.getEmail());
+        preparedStatement.setString(6, person.getImageURL());
+    }
+
+    // Applies only if the row is still at p.getVersion(), and moves it to the next version.
+    // Returns false if there is no user with this id (e.g. another client deleted it) and throws
+    // UpdateConflictException, carrying the current row, if another client changed it meanwhile.
+    public boolean editUser(int id, Person p) {
+        ensureSchema();
+        String sql = UPDATE_SQL;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
             preparedStatement.setString(1, p.getFirstName());
             preparedStatement.setString(2, p.getLastName());
             preparedStatement.setString(3, p.getDepartment());
@@ -181,9 +503,22 @@ public class DbConnectivityClass {
             preparedStatement.setString(5, p.getEmail());
             preparedStatement.setString(6, p.getImageURL());
             preparedStatement.setInt(7, id);
-            preparedStatement.executeUpdate();
-            preparedStatement.close();
-            conn.close();
+            preparedStatement.setInt(8, p.getVersion());
+            if (preparedStatement.executeUpdate() == 0) {
+                Person current = findById(conn, id);
+                if (current == null) {
+                    cache.invalidate(id);
+                    return false;
+                }
+                cache.put(current);
+                throw new UpdateConflictException(id, p.getVersion(), current);
+            }
+            Person saved = new Person(id, p.getFirstName(), p.getLastName(), p.getDepartment(), p.getMajor(),
+                    p.getEmail(), p.getImageURL());
+            saved.setVersion(p.getVersion() + 1);
+            cache.put(saved);
+            aggregates.invalidateAll();
+            return true;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -191,36 +526,245 @@ public class DbConnectivityClass {
 
     public void deleteRecord(Person person) {
         int id = person.getId();
-        connectToDatabase();
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "DELETE FROM users WHERE id=?";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+        ensureSchema();
+        String sql = DELETE_SQL;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql);
+             PreparedStatement tombstone = conn.prepareStatement(TOMBSTONE_SQL)) {
+            // Delete and tombstone together so other clients' delta sync sees the delete
+            conn.setAutoCommit(false);
             preparedStatement.setInt(1, id);
-            preparedStatement.executeUpdate();
-            preparedStatement.close();
-            conn.close();
+            // Already deleted (and tombstoned) by someone else: nothing to record
+            if (preparedStatement.executeUpdate() > 0) {
+                tombstone.setInt(1, id);
+                tombstone.executeUpdate();
+            }
+            conn.commit();
+            // The table may be empty now; re-check lazily on the next connectToDatabase()
+            hasRegisteredUsers = null;
+            // Cached pages listing this id now miss and are re-read
+            cache.invalidate(id);
+            aggregates.invalidateAll();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static final String TOMBSTONE_SQL = "INSERT INTO users_tombstones (id) VALUES (?)";
+
+    // Bulk statements take at most this many ids each, well under any driver's placeholder limit
+    static final int IN_LIST_CHUNK = 500;
+
+    static String lockIdsSql(int count) {
+        return "SELECT id FROM users WHERE id IN (" + placeholders(count) + ") FOR UPDATE";
+    }
+
+    static String deleteIdsSql(int count) {
+        return "DELETE FROM users WHERE id IN (" + placeholders(count) + ")";
+    }
+
+    // A null major or department leaves that column as it is
+    static String updateMajorAndDepartmentSql(int count) {
+        return "UPDATE users SET major = COALESCE(?, major), department = COALESCE(?, department), " +
+                "version = version + 1 " +
+                "WHERE id IN (" + placeholders(count) + ")";
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    // Delete all users with these ids in one transaction, one DELETE ... IN per chunk of ids, and
+    // tombstone the ones that existed. Returns how many were deleted.
+    public int deleteUsers(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        ensureSchema();
+        int deleted = 0;
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement tombstone = conn.prepareStatement(TOMBSTONE_SQL)) {
+                for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK) {
+                    List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_CHUNK));
+                    // Lock the rows first so only ids that really existed are tombstoned
+                    List<Integer> existing = new ArrayList<>(chunk.size());
+                    try (PreparedStatement lock = conn.prepareStatement(lockIdsSql(chunk.size()))) {
+                        bindIds(lock, 1, chunk);
+                        try (ResultSet resultSet = lock.executeQuery()) {
+                            while (resultSet.next()) {
+                                existing.add(resultSet.getInt(1));
+                            }
+                        }
+                    }
+                    if (existing.isEmpty()) {
+                        continue;
+                    }
+                    try (PreparedStatement delete = conn.prepareStatement(deleteIdsSql(existing.size()))) {
+                        bindIds(delete, 1, existing);
+                        deleted += delete.executeUpdate();
+                    }
+                    for (int id : existing) {
+                        tombstone.setInt(1, id);
+                        tombstone.addBatch();
+                    }
+                    tombstone.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        hasRegisteredUsers = null;
+        for (int id : ids) {
+            cache.invalidate(id);
+        }
+        aggregates.invalidateAll();
+        lg.makeLog(deleted + " users were deleted in one transaction.");
+        return deleted;
+    }
+
+    // Set major and/or department (null leaves it unchanged) on all users with these ids,
+    // one UPDATE ... IN per chunk of ids. Returns how many rows were updated.
+    public int updateMajorAndDepartment(List<Integer> ids, String major, String department) {
+        if (ids.isEmpty() || (major == null && department == null)) {
+            return 0;
+        }
+        ensureSchema();
+        int updated = 0;
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK) {
+                    List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_CHUNK));
+                    try (PreparedStatement update = conn.prepareStatement(updateMajorAndDepartmentSql(chunk.size()))) {
+                        update.setString(1, major);
+                        update.setString(2, department);
+                        bindIds(update, 3, chunk);
+                        updated += update.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        for (int id : ids) {
+            cache.invalidate(id);
+        }
+        aggregates.invalidateAll();
+        return updated;
+    }
+
+    private static void bindIds(PreparedStatement statement, int firstIndex, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            statement.setInt(firstIndex + i, ids.get(i));
+        }
+    }
+
+    // Current database server time, the starting watermark for fetchChangesSince
+    public Timestamp getServerTime() {
+        ensureSchema();
+        try (Connection conn = pool.getConnection();
+             Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT CURRENT_TIMESTAMP(3)")) {
+            resultSet.next();
+            return resultSet.getTimestamp(1);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Rows changed and ids deleted since the watermark. The window reaches back overlapMillis
+    // before the watermark so rows committed late by a long transaction are not missed;
+    // callers merge by id, so seeing a row twice is harmless. If the window starts before the
+    // tombstone retention, deletes may have been purged and a full reload is returned instead.
+    public ChangeSet fetchChangesSince(Timestamp watermark, long overlapMillis) {
+        ensureSchema();
+        Timestamp from = new Timestamp(watermark.getTime() - overlapMillis);
+        List<Person> upserts = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        try (Connection conn = pool.getConnection()) {
+            Timestamp now;
+            try (Statement statement = conn.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT CURRENT_TIMESTAMP(3)")) {
+                resultSet.next();
+                now = resultSet.getTimestamp(1);
+            }
+            if (from.getTime() < now.getTime() - TOMBSTONE_RETENTION_MS) {
+                cache.clear();
+                aggregates.invalidateAll();
+                return ChangeSet.fullReload(now);
+            }
+            try (PreparedStatement preparedStatement = conn.prepareStatement(
+                    CHANGED_SINCE_SQL)) {
+                preparedStatement.setTimestamp(1, from);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        upserts.add(mapPerson(resultSet));
+                    }
+                }
+            }
+            try (PreparedStatement preparedStatement = conn.prepareStatement(
+                    TOMBSTONES_SINCE_SQL)) {
+                preparedStatement.setTimestamp(1, from);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        deletedIds.add(resultSet.getInt(1));
+                    }
+                }
+            }
+            cache.putAll(upserts);
+            for (int id : deletedIds) {
+                cache.invalidate(id);
+            }
+            if (!upserts.isEmpty() || !deletedIds.isEmpty()) {
+                // Includes other clients' writes, which the invalidation above cannot see
+                aggregates.invalidateAll();
+            }
+            return new ChangeSet(upserts, deletedIds, now);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Drop tombstones older than the retention period, measured on the database clock like the
+    // watermarks; fetchChangesSince tells clients offline longer to reload fully.
+    public int purgeTombstones() {
+        Timestamp cutoff = new Timestamp(getServerTime().getTime() - TOMBSTONE_RETENTION_MS);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(PURGE_TOMBSTONES_SQL)) {
+            preparedStatement.setTimestamp(1, cutoff);
+            return preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     // Method to retrieve id from database where it is auto-incremented.
+    // Not needed after insertUser, which already returns the generated id.
     public int retrieveId(Person p) {
-        connectToDatabase();
+        ensureSchema();
         int id = -1;
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            String sql = "SELECT id FROM users WHERE email=?";
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+        String sql = ID_BY_EMAIL_SQL;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
             preparedStatement.setString(1, p.getEmail());
 
             ResultSet resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
                 id = resultSet.getInt("id");
             }
-            preparedStatement.close();
-            conn.close();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -228,44 +772,44 @@ public class DbConnectivityClass {
         return id;
     }
 
-    // Ensure this happens somewhere in the code
-    public static DbConnectivityClass cnUtil = new DbConnectivityClass();
-
-    // Method to retrieve all users for CSV export
-    public String stringAllUsers() {
-        List<Person> users = cnUtil.getUsers(); // Corrected to getUsers()
-
-        // StringBuilder for building CSV data
-        StringBuilder csvData = new StringBuilder();
-
-        // CSV Header
-        csvData.append("id,firstName,lastName,department,major,email,imageURL\n");
+    public static DatabaseBackend getBackend() {
+        return backend;
+    }
 
-        // Loop through each user and append their data as a CSV row
-        for (Person user : users) {
-            csvData.append(safe(user.getId())).append(",")
-                    .append(safe(user.getFirstName())).append(",")
-                    .append(safe(user.getLastName())).append(",")
-                    .append(safe(user.getDepartment())).append(",")
-                    .append(safe(user.getMajor())).append(",")
-                    .append(safe(user.getEmail())).append(",")
-                    .append(safe(user.getImageURL())).append("\n");
-        }
+    // Pool metrics (active, idle, wait time) for diagnostics
+    public static ConnectionPool getPool() {
+        return pool;
+    }
 
-        // Return the CSV data as a string
-        return csvData.toString();
+    // Open the minimum number of pooled connections ahead of the first query
+    public static void warmUpPool() {
+        pool.warmUp();
     }
 
-    // Helper method to handle null or empty values
-    private String safe(Object value) {
-        return value == null ? "" : value.toString();  // Return empty string if value is null
+    public static PersonCache getCache() {
+        return cache;
     }
 
-    public List<Person> getUsers() {
-        return users;
+    // Close all pooled connections, called when the application exits
+    public static void shutdownPool() {
+        MyLogger.makeLog(cache.toString());
+        MyLogger.makeLog(aggregates.toString());
+        MyLogger.makeLog(pool.toString());
+        pool.close();
     }
 
-    public void setUsers(List<Person> users) {
-        this.users = users;
+    // Shared instance used by every screen (MainApplication and DB_GUI_Controller)
+    public static DbConnectivityClass cnUtil = new DbConnectivityClass();
+
+    // Method to retrieve all users as CSV text, streamed from the database.
+    // Large exports should use CsvExporter.exportToFile so the result never sits in memory.
+    public String stringAllUsers() {
+        StringWriter csvData = new StringWriter();
+        try {
+            new CsvExporter(true).export(csvData);
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+        }
+        return csvData.toString();
     }
 }
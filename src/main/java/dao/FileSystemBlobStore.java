@@ -0,0 +1,101 @@
+package dao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// BlobStore in a local directory, for tests and offline use. Staged blocks are kept as
+// files under .staging/<blob>/ until the commit concatenates them into <dir>/<blob>.
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String STAGING_DIR = ".staging";
+
+    private final Path root;
+
+    public FileSystemBlobStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    @Override
+    public void stageBlock(String blobName, String blockId, byte[] data, int length) throws IOException {
+        Path dir = Files.createDirectories(stagingDir(blobName));
+        // Write then rename, so a block interrupted halfway never counts as staged
+        Path tmp = Files.createTempFile(dir, blockId, ".part");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            out.write(data, 0, length);
+        }
+        Files.move(tmp, dir.resolve(blockId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public Set<String> getUncommittedBlockIds(String blobName) throws IOException {
+        Set<String> ids = new HashSet<>();
+        Path dir = stagingDir(blobName);
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                files.map(path -> path.getFileName().toString())
+                        .filter(name -> !name.endsWith(".part"))
+                        .forEach(ids::add);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void commitBlockList(String blobName, List<String> blockIds) throws IOException {
+        Path dir = stagingDir(blobName);
+        Path target = blobPath(blobName);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".commit");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            for (String blockId : blockIds) {
+                Path block = dir.resolve(blockId);
+                if (!Files.exists(block)) {
+                    throw new IOException("Block " + blockId + " of " + blobName + " was never staged");
+                }
+                Files.copy(block, out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteStaging(dir);
+    }
+
+    @Override
+    public boolean exists(String blobName) {
+        return Files.exists(blobPath(blobName));
+    }
+
+    @Override
+    public String getUrl(String blobName) {
+        return blobPath(blobName).toUri().toString();
+    }
+
+    private Path blobPath(String blobName) {
+        return root.resolve(blobName);
+    }
+
+    private Path stagingDir(String blobName) {
+        return root.resolve(STAGING_DIR).resolve(blobName);
+    }
+
+    private static void deleteStaging(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,73 @@
+package dao;
+
+import java.nio.file.Path;
+
+// Embedded H2 database in a local file (~/.csc311/db/users.mv.db by default, or
+// -Dcsc311.db.h2.file), opened in MySQL mode so the DAO's SQL and migrations run unchanged.
+// Reads never leave the process, which makes it the offline mode and the benchmark target.
+public class H2Backend implements DatabaseBackend {
+
+    // MySQL mode accepts INT(10), AUTO_INCREMENT and ON UPDATE; lower-case names match MySQL's
+    static final String SETTINGS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    static final Path DEFAULT_FILE = Path.of(System.getProperty("csc311.db.h2.file",
+            Path.of(System.getProperty("user.home"), ".csc311", "db", "users").toString()));
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    // null arguments fall back to the local file, user "sa" and an empty password
+    public H2Backend(String url, String username, String password) {
+        this.url = url != null ? url : fileUrl(DEFAULT_FILE);
+        this.username = username != null ? username : "sa";
+        this.password = password != null ? password : "";
+    }
+
+    // URL of a file database; H2 creates the file and its directory on first connect
+    public static String fileUrl(Path file) {
+        return "jdbc:h2:file:" + file.toAbsolutePath() + SETTINGS;
+    }
+
+    // URL of a private in-memory database that lives until the JVM exits
+    public static String memoryUrl(String name) {
+        return "jdbc:h2:mem:" + name + SETTINGS + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void createDatabase() {
+        // Created on first connect
+    }
+
+    // H2 pages large results itself; a positive fetch size just bounds each round of rows
+    @Override
+    public int getStreamingFetchSize() {
+        return 1000;
+    }
+
+    @Override
+    public String toString() {
+        int settings = url.indexOf(';');
+        return "h2 " + (settings < 0 ? url : url.substring(0, settings));
+    }
+}
@@ -0,0 +1,85 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// The shared MySQL server on Azure
+public class MySqlBackend implements DatabaseBackend {
+
+    final static String DB_NAME = "CSC311_BD_TEMP";
+    final static String SQL_SERVER_URL = "jdbc:mysql://maradcsc11.mysql.database.azure.com"; // update this server name
+    final static String DB_URL = SQL_SERVER_URL + "/" + DB_NAME // update this database name
+            + "?rewriteBatchedStatements=true"; // send JDBC batches as multi-row INSERTs
+    final static String USERNAME = "marac"; // update this username
+    final static String PASSWORD = "Forcsc311"; // update this password
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    // null arguments fall back to the defaults above
+    public MySqlBackend(String url, String username, String password) {
+        this.url = url != null ? url : DB_URL;
+        this.username = username != null ? username : USERNAME;
+        this.password = password != null ? password : PASSWORD;
+    }
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    // Connect to the server without a database and create ours if it is missing
+    @Override
+    public void createDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(serverUrl(url), username, password);
+             Statement statement = conn.createStatement()) {
+            statement.executeUpdate("CREATE DATABASE IF NOT EXISTS " + databaseName(url));
+        }
+    }
+
+    // Connector/J streams rows one at a time only for this magic value
+    @Override
+    public int getStreamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
+
+    // jdbc:mysql://host[:port]/db?params -> jdbc:mysql://host[:port]
+    static String serverUrl(String url) {
+        int slash = url.indexOf('/', "jdbc:mysql://".length());
+        return slash < 0 ? url : url.substring(0, slash);
+    }
+
+    // jdbc:mysql://host[:port]/db?params -> db
+    static String databaseName(String url) {
+        int slash = url.indexOf('/', "jdbc:mysql://".length());
+        if (slash < 0) {
+            return DB_NAME;
+        }
+        int query = url.indexOf('?', slash);
+        String name = url.substring(slash + 1, query < 0 ? url.length() : query);
+        return name.isEmpty() ? DB_NAME : name;
+    }
+
+    @Override
+    public String toString() {
+        return "mysql " + serverUrl(url) + "/" + databaseName(url);
+    }
+}
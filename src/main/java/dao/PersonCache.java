@@ -0,0 +1,181 @@
+package dao;
+
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Size-bounded LRU cache of Person rows by id, with a time-to-live, shared by every
+// DbConnectivityClass. It also remembers which ids each keyset page returned, so a page
+// whose rows are all cached is served without a query. The DAO writes through it.
+public class PersonCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Integer, Entry> entries;
+    private final LinkedHashMap<PageKey, PageEntry> pages;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public PersonCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // Access-ordered maps: the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > PersonCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.pages = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, PageEntry> eldest) {
+                return size() > Math.max(16, PersonCache.this.maxEntries / 50);
+            }
+        };
+    }
+
+    public synchronized Person get(int id) {
+        Entry entry = entries.get(id);
+        if (entry == null || isExpired(entry.loadedAt)) {
+            if (entry != null) {
+                entries.remove(id);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.person;
+    }
+
+    public synchronized void put(Person person) {
+        if (person != null && person.getId() != null) {
+            entries.put(person.getId(), new Entry(person, System.currentTimeMillis()));
+        }
+    }
+
+    public synchronized void putAll(List<Person> people) {
+        long now = System.currentTimeMillis();
+        for (Person person : people) {
+            if (person.getId() != null) {
+                entries.put(person.getId(), new Entry(person, now));
+            }
+        }
+    }
+
+    public synchronized void invalidate(int id) {
+        entries.remove(id);
+    }
+
+    // Cached keyset page, or null if the page or any of its rows is missing or expired.
+    public synchronized List<Person> getPage(boolean forward, int cursor, int limit) {
+        PageEntry page = pages.get(new PageKey(forward, cursor, limit));
+        if (page == null || isExpired(page.loadedAt)) {
+            misses++;
+            return null;
+        }
+        List<Person> people = new ArrayList<>(page.ids.length);
+        for (int id : page.ids) {
+            Entry entry = entries.get(id);
+            if (entry == null || isExpired(entry.loadedAt)) {
+                misses++;
+                return null;
+            }
+            people.add(entry.person);
+        }
+        hits++;
+        return people;
+    }
+
+    public synchronized void putPage(boolean forward, int cursor, int limit, List<Person> people) {
+        int[] ids = new int[people.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = people.get(i).getId();
+        }
+        putAll(people);
+        pages.put(new PageKey(forward, cursor, limit), new PageEntry(ids, System.currentTimeMillis()));
+    }
+
+    // A new row (highest id) can only change pages that were not full, i.e. the tail of the table.
+    public synchronized void invalidatePartialPages() {
+        pages.entrySet().removeIf(e -> e.getValue().ids.length < e.getKey().limit);
+    }
+
+    public synchronized void invalidatePages() {
+        pages.clear();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        pages.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PersonCache{" +
+                "size=" + entries.size() +
+                ", pages=" + pages.size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", hitRate=" + String.format("%.2f", getHitRate()) +
+                '}';
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt > ttlMillis;
+    }
+
+    private static class Entry {
+        final Person person;
+        final long loadedAt;
+
+        Entry(Person person, long loadedAt) {
+            this.person = person;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static class PageEntry {
+        final int[] ids;
+        final long loadedAt;
+
+        PageEntry(int[] ids, long loadedAt) {
+            this.ids = ids;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private record PageKey(boolean forward, int cursor, int limit) {
+    }
+}
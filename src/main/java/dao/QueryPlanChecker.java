@@ -0,0 +1,194 @@
+package dao;
+
+import service.MyLogger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Runs EXPLAIN on every statement the DAO issues and flags the ones that read the whole table.
+// Hot statements (lookups run per click or per page) must use an index; whole-table exports
+// and counts are expected to scan and are only reported. Understands MySQL's tabular plan
+// (type = ALL) and H2's text plan (tableScan).
+public class QueryPlanChecker {
+
+    public static class PlanCheck {
+        private final String name;
+        private final String sql;
+        private final boolean hot;
+        private final String plan;
+        private final boolean fullScan;
+
+        PlanCheck(String name, String sql, boolean hot, String plan, boolean fullScan) {
+            this.name = name;
+            this.sql = sql;
+            this.hot = hot;
+            this.plan = plan;
+            this.fullScan = fullScan;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public boolean isHot() {
+            return hot;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+
+        public boolean isFullScan() {
+            return fullScan;
+        }
+
+        // A hot statement that scans the whole table
+        public boolean isProblem() {
+            return hot && fullScan;
+        }
+    }
+
+    private static class Query {
+        final String name;
+        final String sql;
+        final boolean hot;
+        final Object[] sampleParameters;
+
+        Query(String name, String sql, boolean hot, Object... sampleParameters) {
+            this.name = name;
+            this.sql = sql;
+            this.hot = hot;
+            this.sampleParameters = sampleParameters;
+        }
+    }
+
+    private static final List<Query> QUERIES = List.of(
+            new Query("findById", DbConnectivityClass.FIND_BY_ID_SQL, true, 1),
+            new Query("getPageAfter", DbConnectivityClass.PAGE_AFTER_SQL, true, 0, 200),
+            new Query("getPageBefore", DbConnectivityClass.PAGE_BEFORE_SQL, true, Integer.MAX_VALUE, 200),
+            new Query("queryUserByLastName", DbConnectivityClass.BY_LAST_NAME_SQL, true, "Smith"),
+            new Query("searchByPrefix (last name)", DbConnectivityClass.LAST_NAME_PREFIX_SQL, true, "Smi%", 200),
+            new Query("searchByPrefix (email)", DbConnectivityClass.EMAIL_PREFIX_SQL, true, "smi%", 200),
+            new Query("retrieveId", DbConnectivityClass.ID_BY_EMAIL_SQL, true, "someone@example.com"),
+            new Query("editUser", DbConnectivityClass.UPDATE_SQL, true,
+                    "a", "b", "c", "d", "e@example.com", "", 1, 0),
+            new Query("deleteRecord", DbConnectivityClass.DELETE_SQL, true, 1),
+            new Query("deleteUsers (lock)", DbConnectivityClass.lockIdsSql(2), true, 1, 2),
+            new Query("deleteUsers", DbConnectivityClass.deleteIdsSql(2), true, 1, 2),
+            new Query("updateMajorAndDepartment", DbConnectivityClass.updateMajorAndDepartmentSql(2), true,
+                    "CS", "Computing", 1, 2),
+            new Query("fetchChangesSince", DbConnectivityClass.CHANGED_SINCE_SQL, true,
+                    new Timestamp(System.currentTimeMillis())),
+            new Query("fetchChangesSince (tombstones)", DbConnectivityClass.TOMBSTONES_SINCE_SQL, true,
+                    new Timestamp(System.currentTimeMillis())),
+            new Query("purgeTombstones", DbConnectivityClass.PURGE_TOMBSTONES_SQL, false,
+                    new Timestamp(System.currentTimeMillis())),
+            new Query("countUsers", DbConnectivityClass.COUNT_SQL, false),
+            new Query("countByMajor", DbConnectivityClass.groupBySql("major"), false),
+            new Query("countByDepartment", DbConnectivityClass.groupBySql("department"), false),
+            new Query("countByMajorAndDepartment", DbConnectivityClass.BY_MAJOR_AND_DEPARTMENT_SQL, false)
+    );
+
+    // EXPLAIN every DAO statement on the shared pool, logging a warning for each hot full scan.
+    public List<PlanCheck> checkAll() throws SQLException {
+        DbConnectivityClass.ensureSchema();
+        try (Connection conn = DbConnectivityClass.getPool().getConnection()) {
+            return checkAll(conn);
+        }
+    }
+
+    public List<PlanCheck> checkAll(Connection conn) throws SQLException {
+        List<PlanCheck> checks = new ArrayList<>(QUERIES.size());
+        for (Query query : QUERIES) {
+            PlanCheck check = explain(conn, query);
+            if (check.isProblem()) {
+                MyLogger.makeLog("WARNING full table scan in hot query " + check.getName() + ": "
+                        + check.getSql() + " -> " + check.getPlan());
+            }
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    // Plain-text summary, one line per statement, problems first
+    public static String format(List<PlanCheck> checks) {
+        StringBuilder sb = new StringBuilder();
+        for (boolean problems : new boolean[]{true, false}) {
+            for (PlanCheck check : checks) {
+                if (check.isProblem() != problems) {
+                    continue;
+                }
+                sb.append(check.isProblem() ? "FULL SCAN  " : check.isFullScan() ? "scan (ok)  " : "index      ")
+                        .append(check.getName()).append('\n')
+                        .append("    ").append(check.getPlan().replace("\n", " ")).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private PlanCheck explain(Connection conn, Query query) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.sampleParameters.length; i++) {
+                statement.setObject(i + 1, query.sampleParameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData meta = resultSet.getMetaData();
+                int typeColumn = findColumn(meta, "type");
+                StringBuilder plan = new StringBuilder();
+                boolean fullScan = false;
+                while (resultSet.next()) {
+                    if (typeColumn > 0) {
+                        // MySQL: one row per table access
+                        String row = describeMySqlRow(resultSet, meta);
+                        plan.append(plan.length() == 0 ? "" : "; ").append(row);
+                        fullScan |= isMySqlFullScan(resultSet.getString(typeColumn));
+                    } else {
+                        String text = resultSet.getString(1);
+                        plan.append(text);
+                        fullScan |= isH2FullScan(text);
+                    }
+                }
+                return new PlanCheck(query.name, query.sql, query.hot, plan.toString(), fullScan);
+            }
+        }
+    }
+
+    static boolean isMySqlFullScan(String accessType) {
+        return "ALL".equalsIgnoreCase(accessType);
+    }
+
+    static boolean isH2FullScan(String plan) {
+        return plan != null && plan.toLowerCase(Locale.ROOT).contains("tablescan");
+    }
+
+    private static String describeMySqlRow(ResultSet resultSet, ResultSetMetaData meta) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        for (String column : new String[]{"table", "type", "key", "rows", "Extra"}) {
+            int index = findColumn(meta, column);
+            if (index > 0) {
+                sb.append(sb.length() == 0 ? "" : " ").append(column).append('=').append(resultSet.getString(index));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int findColumn(ResultSetMetaData meta, String label) throws SQLException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (meta.getColumnLabel(i).equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
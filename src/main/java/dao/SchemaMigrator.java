@@ -0,0 +1,219 @@
+package dao;
+
+import service.MyLogger;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Applies the versioned schema changes for the "users" database exactly once
+// and records each applied version in the schema_version table.
+public class SchemaMigrator {
+
+    static final String VERSION_TABLE = "schema_version";
+    private static final String LOCK_NAME = "csc311.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    private static final ReentrantLock LOCAL_LOCK = new ReentrantLock();
+
+    // Append new migrations to the end with the next version number; never edit an applied one.
+    // DDL commits as it runs, so a migration can stop halfway and is run again on the next start:
+    // every step must be safe to repeat (IF NOT EXISTS, or addColumn/createIndex, which check first).
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create users table",
+                    sql("CREATE TABLE IF NOT EXISTS users (" +
+                            "id INT(10) NOT NULL PRIMARY KEY AUTO_INCREMENT, " +
+                            "first_name VARCHAR(200) NOT NULL, " +
+                            "last_name VARCHAR(200) NOT NULL, " +
+                            "department VARCHAR(200), " +
+                            "major VARCHAR(200), " +
+                            "email VARCHAR(200) NOT NULL UNIQUE, " +
+                            "imageURL VARCHAR(200))")),
+            new Migration(2, "track row changes for delta sync",
+                    addColumn("users", "last_modified", "TIMESTAMP(3) NOT NULL " +
+                            "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)"),
+                    createIndex("idx_users_last_modified", "users", "last_modified"),
+                    sql("CREATE TABLE IF NOT EXISTS users_tombstones (" +
+                            "id INT(10) NOT NULL PRIMARY KEY, " +
+                            "deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))"),
+                    createIndex("idx_users_tombstones_deleted_at", "users_tombstones", "deleted_at")),
+            // last_name lookups (ordered by first name), and major/department filters and GROUP BYs;
+            // each composite also serves its leading column alone
+            new Migration(3, "index name, major and department lookups",
+                    createIndex("idx_users_last_name_first_name", "users", "last_name, first_name"),
+                    createIndex("idx_users_major_department", "users", "major, department"),
+                    createIndex("idx_users_department_major", "users", "department, major")),
+            // Bumped by every UPDATE; edits apply only WHERE version matches the one they were based on
+            new Migration(4, "row version for optimistic concurrency",
+                    addColumn("users", "version", "INT NOT NULL DEFAULT 0"))
+    );
+
+    // Bring the schema up to the latest version and return that version. Several app instances
+    // may start at once: the pending migrations are applied under a lock, after reading the
+    // version again, so each runs once.
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (" +
+                    "version INT NOT NULL PRIMARY KEY, " +
+                    "description VARCHAR(200), " +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        int current = currentVersion(conn);
+        if (current >= latestVersion()) {
+            return current;
+        }
+        lock(conn);
+        try {
+            current = currentVersion(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                apply(conn, migration);
+                current = migration.version;
+            }
+            return current;
+        } finally {
+            unlock(conn);
+        }
+    }
+
+    public int currentVersion(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    // DDL commits the open transaction, so a row lock would not last through a migration. MySQL
+    // gets a named lock held by the session; an embedded H2 database is only open in this JVM.
+    private static void lock(Connection conn) throws SQLException {
+        if (!isMySql(conn)) {
+            LOCAL_LOCK.lock();
+            return;
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            preparedStatement.setString(1, LOCK_NAME);
+            preparedStatement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out after " + LOCK_TIMEOUT_SECONDS
+                            + " s waiting for another instance to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) throws SQLException {
+        if (!isMySql(conn)) {
+            LOCAL_LOCK.unlock();
+            return;
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            preparedStatement.setString(1, LOCK_NAME);
+            preparedStatement.executeQuery().close();
+        }
+    }
+
+    private static boolean isMySql(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            for (Step step : migration.steps) {
+                step.apply(conn, statement);
+            }
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement(
+                "INSERT INTO " + VERSION_TABLE + " (version, description) VALUES (?, ?)")) {
+            preparedStatement.setInt(1, migration.version);
+            preparedStatement.setString(2, migration.description);
+            preparedStatement.executeUpdate();
+        }
+        MyLogger.makeLog("Applied schema version " + migration.version + ": " + migration.description);
+    }
+
+    private static Step sql(String sql) {
+        return (conn, statement) -> statement.executeUpdate(sql);
+    }
+
+    // MySQL has no ADD COLUMN IF NOT EXISTS or CREATE INDEX IF NOT EXISTS, so ask the catalog
+    private static Step addColumn(String table, String column, String definition) {
+        return (conn, statement) -> {
+            if (!hasColumn(conn, table, column)) {
+                statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+        };
+    }
+
+    private static Step createIndex(String name, String table, String columns) {
+        return (conn, statement) -> {
+            if (!hasIndex(conn, table, name)) {
+                statement.executeUpdate("CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+            }
+        };
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet resultSet = meta.getColumns(conn.getCatalog(), conn.getSchema(), storedName(meta, table), null)) {
+            while (resultSet.next()) {
+                if (table.equalsIgnoreCase(resultSet.getString("TABLE_NAME"))
+                        && column.equalsIgnoreCase(resultSet.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasIndex(Connection conn, String table, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet resultSet = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), storedName(meta, table), false, false)) {
+            while (resultSet.next()) {
+                if (index.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Unquoted names as the database stores them, for catalog lookups
+    private static String storedName(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        if (meta.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return name;
+    }
+
+    private interface Step {
+        void apply(Connection conn, Statement statement) throws SQLException;
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final Step[] steps;
+
+        Migration(int version, String description, Step... steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = steps;
+        }
+    }
+}
@@ -1,29 +1,176 @@
 package dao;
 
-import com.azure.storage.blob.BlobClient;
-import com.azure.storage.blob.BlobClientBuilder;
-import com.azure.storage.blob.BlobContainerClient;
-import com.azure.storage.blob.BlobContainerClientBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
+// Uploads files as block blobs: the file is cut into fixed-size blocks that are staged in
+// parallel and committed as one block list at the end. Block ids are derived from the file's
+// size, modification time and the block size, so re-running a failed upload of the same file
+// skips the blocks that were already staged.
 public class StorageUploader {
 
-    private BlobContainerClient containerClient;
+    // Defaults, e.g. -Dcsc311.upload.blockSize=8388608 -Dcsc311.upload.concurrency=8
+    private static final int BLOCK_SIZE = Integer.getInteger("csc311.upload.blockSize", 4 * 1024 * 1024);
+    private static final int CONCURRENCY = Integer.getInteger("csc311.upload.concurrency", 4);
+    // Blocks of all uploads are staged on one bounded pool
+    private static final int UPLOAD_THREADS = Integer.getInteger("csc311.upload.threads", 4);
+
+    // Point uploads at a local directory (-Dcsc311.storage.dir) or another account/emulator
+    private static final String STORAGE_DIR = System.getProperty("csc311.storage.dir");
+    private static final String CONNECTION_STRING = System.getProperty("csc311.storage.connectionString",
+            "DefaultEndpointsProtocol=https;AccountName=maradiagacsc311storage;AccountKey=tZeSFsbGqCNdkOsxASJPk1nPdSYMvKfualeXWppcN7uScxE6SdVcAqU4Y0F1yp2aXhLIDzV7gTrB+ASt8HLGxw==;EndpointSuffix=core.windows.net");
+    private static final String CONTAINER_NAME = "media-files";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            UPLOAD_THREADS, new UploadThreadFactory());
+
+    private final BlobStore store;
+    private final int blockSize;
+    private final int concurrency;
 
     public StorageUploader( ) {
-        this.containerClient = new BlobContainerClientBuilder()
-                .connectionString("DefaultEndpointsProtocol=https;AccountName=maradiagacsc311storage;AccountKey=tZeSFsbGqCNdkOsxASJPk1nPdSYMvKfualeXWppcN7uScxE6SdVcAqU4Y0F1yp2aXhLIDzV7gTrB+ASt8HLGxw==;EndpointSuffix=core.windows.net")
-                .containerName("media-files")
-                .buildClient();
+        this(defaultStore(), BLOCK_SIZE, CONCURRENCY);
     }
-    public void uploadFile(String filePath, String blobName) {
-        BlobClient blobClient = containerClient.getBlobClient(blobName);
-        blobClient.uploadFromFile(filePath);
+
+    public StorageUploader(BlobStore store, int blockSize, int concurrency) {
+        if (blockSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("blockSize and concurrency must be positive");
+        }
+        this.store = store;
+        this.blockSize = blockSize;
+        this.concurrency = concurrency;
     }
-    public BlobContainerClient getContainerClient(){
-        return containerClient;
+
+    public void uploadFile(String filePath, String blobName) throws IOException, InterruptedException {
+        upload(Paths.get(filePath), blobName, bytes -> { });
     }
 
+    // Upload the file as blobName, reporting the bytes uploaded so far. On failure the staged
+    // blocks are kept, so calling this again for the same file only sends the missing ones.
+    public void upload(Path file, String blobName, LongConsumer progress) throws IOException, InterruptedException {
+        long size = Files.size(file);
+        int blockCount = (int) ((size + blockSize - 1) / blockSize);
+        String prefix = String.format("%016x", fingerprint(file, size));
+        List<String> blockIds = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blockIds.add(prefix + String.format("-%08d", i));
+        }
 
+        Set<String> staged = store.getUncommittedBlockIds(blobName);
+        AtomicLong uploaded = new AtomicLong();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        // At most `concurrency` blocks of this upload are in memory or in flight at once
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
 
-}
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < blockCount; i++) {
+                long offset = (long) i * blockSize;
+                int length = (int) Math.min(blockSize, size - offset);
+                String blockId = blockIds.get(i);
+                if (staged.contains(blockId)) {
+                    reportProgress(progress, uploaded, length);
+                    continue;
+                }
+                inFlight.acquire();
+                if (failure.get() != null) {
+                    // Stop at the first failed block; the next attempt resumes from here
+                    inFlight.release();
+                    break;
+                }
+                futures.add(executor.submit(() -> {
+                    try {
+                        ByteBuffer buffer = ByteBuffer.allocate(length);
+                        while (buffer.hasRemaining()) {
+                            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                                throw new IOException(file + " shrank during upload");
+                            }
+                        }
+                        store.stageBlock(blobName, blockId, buffer.array(), length);
+                        reportProgress(progress, uploaded, length);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, (Exception) e.getCause());
+        }
 
+        if (failure.get() != null) {
+            throw new IOException("Uploading " + blobName + " failed; staged blocks are kept for a retry",
+                    failure.get());
+        }
+        store.commitBlockList(blobName, blockIds);
+    }
+
+    public BlobStore getStore() {
+        return store;
+    }
+
+    public static ExecutorService getExecutor() {
+        return executor;
+    }
+
+    private long fingerprint(Path file, long size) throws IOException {
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        return ((size * 31 + modified) * 31 + blockSize) * 31 + file.getFileName().toString().hashCode();
+    }
+
+    // Blocks finish on several threads; adding and reporting under one lock keeps the totals in order
+    private static void reportProgress(LongConsumer progress, AtomicLong uploaded, int length) {
+        synchronized (uploaded) {
+            progress.accept(uploaded.addAndGet(length));
+        }
+    }
+
+    private static BlobStore defaultStore() {
+        if (STORAGE_DIR != null) {
+            try {
+                return new FileSystemBlobStore(Paths.get(STORAGE_DIR));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot use storage directory " + STORAGE_DIR, e);
+            }
+        }
+        return new AzureBlobStore(CONNECTION_STRING, CONTAINER_NAME);
+    }
+
+    private static class UploadThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "blob-upload-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
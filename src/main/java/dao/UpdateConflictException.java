@@ -0,0 +1,19 @@
+package dao;
+
+import model.Person;
+
+// Thrown by editUser when the row was changed by someone else after the edited copy was read.
+// Carries the row as it is now, so the caller can merge or reload.
+public class UpdateConflictException extends RuntimeException {
+
+    private final Person current;
+
+    public UpdateConflictException(int id, int expectedVersion, Person current) {
+        super("User " + id + " is at version " + current.getVersion() + ", edit was based on " + expectedVersion);
+        this.current = current;
+    }
+
+    public Person getCurrent() {
+        return current;
+    }
+}
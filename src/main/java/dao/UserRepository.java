@@ -0,0 +1,71 @@
+package dao;
+
+import model.Person;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Operations the screens and services use on the users table. DbConnectivityClass implements
+// it on top of whichever DatabaseBackend is configured (MySQL server or embedded H2 file).
+public interface UserRepository {
+
+    // Whether the users table has any rows, bootstrapping the schema the first time
+    boolean connectToDatabase();
+
+    // Keyset pagination: up to "limit" users with id greater than afterId, in id order
+    List<Person> getPageAfter(int afterId, int limit);
+
+    // Up to "limit" users with id less than beforeId, in id order
+    List<Person> getPageBefore(int beforeId, int limit);
+
+    // null if there is no such id
+    Person findById(int id);
+
+    // Up to "limit" users whose last name or email starts with prefix
+    List<Person> searchByPrefix(String prefix, int limit);
+
+    // Visit every user page by page without holding the whole table in memory
+    void forEachUser(int pageSize, Consumer<Person> action);
+
+    long countUsers();
+
+    Map<String, Long> countByMajor();
+
+    Map<String, Long> countByDepartment();
+
+    Map<String, Map<String, Long>> countByMajorAndDepartment();
+
+    // Returns the person with its generated id set; throws if the insert failed
+    Person insertUser(Person person);
+
+    // Inserts all people in one transaction; returns their generated ids in the same order
+    List<Integer> insertUsers(List<Person> people);
+
+    // Only if the row is still at p.getVersion(); false if there is no user with this id, and
+    // UpdateConflictException if someone else changed it since
+    boolean editUser(int id, Person p);
+
+    // A no-op if the user is already gone
+    void deleteRecord(Person person);
+
+    // Deletes all of them in one transaction; returns how many existed
+    int deleteUsers(List<Integer> ids);
+
+    // Sets major and/or department (null leaves it unchanged) on all of them; returns rows updated
+    int updateMajorAndDepartment(List<Integer> ids, String major, String department);
+
+    // Database clock, the starting watermark for fetchChangesSince
+    Timestamp getServerTime();
+
+    ChangeSet fetchChangesSince(Timestamp watermark, long overlapMillis);
+
+    // Drops tombstones older than the retention period; returns how many were dropped
+    int purgeTombstones();
+
+    int retrieveId(Person p);
+
+    // All users as CSV text
+    String stringAllUsers();
+}
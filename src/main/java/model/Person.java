@@ -8,6 +8,8 @@ public class Person {
     private String major;
     private String email;
     private String imageURL;
+    // Row version read from the database; an edit only applies if the row is still at it
+    private int version;
 
     public Person() {
     }
@@ -91,6 +93,14 @@ public class Person {
         this.imageURL = imageURL;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Person{" +
@@ -3,6 +3,7 @@ module com.example.csc311_db_ui_semesterlongproject {
     requires javafx.fxml;
     requires java.sql;
     requires java.prefs;
+    requires java.desktop;
     requires com.azure.storage.blob;
     requires org.apache.pdfbox;
 
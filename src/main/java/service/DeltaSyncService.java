@@ -0,0 +1,85 @@
+package service;
+
+import dao.ChangeSet;
+import dao.UserRepository;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Polls the users table for rows changed (last_modified) or deleted (tombstones) since the
+// last watermark and hands each non-empty ChangeSet to the listener, so other operators'
+// edits show up without reloading the table. The listener runs on the poller thread.
+// The poller also drops tombstones past their retention, on a much slower cadence.
+public class DeltaSyncService {
+
+    // Poll interval, e.g. -Dcsc311.sync.intervalMs=2000
+    private static final long INTERVAL_MS = Long.getLong("csc311.sync.intervalMs", 5000);
+    // Re-read this much before the watermark to catch rows from transactions that committed late
+    private static final long OVERLAP_MS = 2000;
+    // Tombstone purge interval, e.g. -Dcsc311.sync.purgeIntervalMs=600000
+    private static final long PURGE_INTERVAL_MS = Long.getLong("csc311.sync.purgeIntervalMs", 3_600_000L);
+
+    private final UserRepository dao;
+    private final Consumer<ChangeSet> listener;
+    private ScheduledExecutorService scheduler;
+    private volatile Timestamp watermark;
+
+    public DeltaSyncService(UserRepository dao, Consumer<ChangeSet> listener) {
+        this.dao = dao;
+        this.listener = listener;
+    }
+
+    // Start polling for changes made from now on
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-delta-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purge, INTERVAL_MS, PURGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // One sync round; also usable directly to refresh on demand
+    public void poll() {
+        try {
+            if (watermark == null) {
+                watermark = dao.getServerTime();
+                return;
+            }
+            ChangeSet changes = dao.fetchChangesSince(watermark, OVERLAP_MS);
+            watermark = changes.getWatermark();
+            if (!changes.isEmpty()) {
+                listener.accept(changes);
+            }
+        } catch (RuntimeException e) {
+            // Keep polling; the next round retries from the same watermark
+            MyLogger.makeLog("Delta sync failed: " + e.getMessage());
+        }
+    }
+
+    // Every client purges; deleting rows another client already deleted is harmless
+    public void purge() {
+        try {
+            int purged = dao.purgeTombstones();
+            if (purged > 0) {
+                MyLogger.makeLog("Purged " + purged + " tombstones");
+            }
+        } catch (RuntimeException e) {
+            MyLogger.makeLog("Tombstone purge failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package service;
+
+import javafx.scene.image.Image;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Loads images by URL off the FX thread for table cells and the detail pane. Decoded images
+// are kept in a memory LRU, downloaded bytes in a disk cache, and concurrent requests for the
+// same image share one load. A load is abandoned once every caller has cancelled its future,
+// e.g. because the cell that asked for it scrolled out of view.
+public class ImageLoader {
+
+    private final Path cacheDir;
+    private final int memoryEntries;
+    private final ExecutorService executor;
+
+    // Decoded images by url and requested size, least recently used first
+    private final LinkedHashMap<String, Image> memory;
+    private final Map<String, Request> inFlight = new HashMap<>();
+
+    private long memoryHits;
+    private long diskHits;
+    private long downloads;
+
+    public ImageLoader(Path cacheDir, int memoryEntries, int threads) throws IOException {
+        this(cacheDir, memoryEntries, Executors.newFixedThreadPool(threads, new LoaderThreadFactory()));
+    }
+
+    // Fetches run on the given executor (tests use one they control)
+    ImageLoader(Path cacheDir, int memoryEntries, ExecutorService executor) throws IOException {
+        this.cacheDir = Files.createDirectories(cacheDir);
+        this.memoryEntries = memoryEntries;
+        this.executor = executor;
+        this.memory = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+                return size() > ImageLoader.this.memoryEntries;
+            }
+        };
+    }
+
+    // Image at url scaled to fit size x size (0 keeps the original size). Cancel the returned
+    // future when the image is no longer wanted.
+    public synchronized CompletableFuture<Image> load(String url, double size) {
+        String key = size + "|" + url;
+        Image cached = memory.get(key);
+        if (cached != null) {
+            memoryHits++;
+            return CompletableFuture.completedFuture(cached);
+        }
+        Request request = inFlight.get(key);
+        if (request == null) {
+            request = new Request();
+            inFlight.put(key, request);
+            Request started = request;
+            request.task = executor.submit(() -> fetch(key, url, size, started));
+        }
+        request.waiters++;
+
+        Request shared = request;
+        CompletableFuture<Image> mine = new CompletableFuture<>();
+        shared.result.whenComplete((image, ex) -> {
+            if (ex != null) {
+                mine.completeExceptionally(ex);
+            } else {
+                mine.complete(image);
+            }
+        });
+        mine.whenComplete((image, ex) -> {
+            if (mine.isCancelled()) {
+                release(key, shared);
+            }
+        });
+        return mine;
+    }
+
+    public synchronized String getStats() {
+        return "ImageLoader{memory=" + memory.size() + ", memoryHits=" + memoryHits + ", diskHits=" + diskHits
+                + ", downloads=" + downloads + ", inFlight=" + inFlight.size() + '}';
+    }
+
+    // Delete the least recently used files until the disk cache is under maxBytes. A file's
+    // modification time is moved forward each time it is read, so it orders by last use.
+    public void trimDiskCache(long maxBytes) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(cacheDir)) {
+            list.filter(Files::isRegularFile).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(ImageLoader::lastModified).reversed());
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+            if (total > maxBytes) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void fetch(String key, String url, double size, Request request) {
+        try {
+            byte[] bytes = readBytes(url);
+            Image image = new Image(new ByteArrayInputStream(bytes), size, size, true, true);
+            if (image.isError()) {
+                throw new IOException("Cannot decode " + url, image.getException());
+            }
+            synchronized (this) {
+                memory.put(key, image);
+                inFlight.remove(key, request);
+            }
+            request.result.complete(image);
+        } catch (Exception e) {
+            synchronized (this) {
+                inFlight.remove(key, request);
+            }
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    // Bytes from the disk cache, or downloaded and written to it.
+    private byte[] readBytes(String url) throws IOException {
+        Path cached = cacheDir.resolve(sha256(url));
+        if (Files.exists(cached)) {
+            synchronized (this) {
+                diskHits++;
+            }
+            byte[] bytes = Files.readAllBytes(cached);
+            try {
+                Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // Trimmed meanwhile; the bytes were read
+            }
+            return bytes;
+        }
+        byte[] bytes;
+        try (InputStream in = new URL(url).openStream()) {
+            bytes = in.readAllBytes();
+        }
+        synchronized (this) {
+            downloads++;
+        }
+        Path tmp = Files.createTempFile(cacheDir, "download", ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    private synchronized void release(String key, Request request) {
+        if (--request.waiters == 0 && !request.result.isDone()) {
+            inFlight.remove(key, request);
+            request.task.cancel(true);
+            request.result.cancel(false);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Request {
+        final CompletableFuture<Image> result = new CompletableFuture<>();
+        Future<?> task;
+        int waiters;
+    }
+
+    private static class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "image-loader-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+// Runs before an image is uploaded: names the blob after the SHA-256 of its content, so
+// identical photos map to one blob (and same-named files no longer overwrite each other),
+// and renders a small PNG thumbnail for table cells and previews.
+public class ImagePreprocessor {
+
+    static final String IMAGE_PREFIX = "images/";
+    static final String THUMBNAIL_PREFIX = "thumbnails/";
+
+    private final int thumbnailSize;
+
+    public ImagePreprocessor(int thumbnailSize) {
+        this.thumbnailSize = thumbnailSize;
+    }
+
+    public PreparedImage prepare(Path file) throws IOException {
+        String hash = sha256(file);
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot).toLowerCase(Locale.ROOT);
+        return new PreparedImage(file, IMAGE_PREFIX + hash + extension, THUMBNAIL_PREFIX + hash + ".png");
+    }
+
+    // Write a thumbnail of the image to a temporary file, or return null if ImageIO cannot decode it.
+    public Path renderThumbnail(Path file) throws IOException {
+        BufferedImage source = ImageIO.read(file.toFile());
+        if (source == null) {
+            return null;
+        }
+        double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        Path out = Files.createTempFile("csc311-thumb-", ".png");
+        ImageIO.write(thumbnail, "png", out.toFile());
+        return out;
+    }
+
+    // URL of the thumbnail uploaded next to a content-addressed image, or null for other URLs
+    public static String thumbnailUrlFor(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        int at = imageUrl.lastIndexOf("/" + IMAGE_PREFIX);
+        if (at < 0) {
+            return null;
+        }
+        String hashed = imageUrl.substring(at + 1 + IMAGE_PREFIX.length());
+        int dot = hashed.indexOf('.');
+        String hash = dot < 0 ? hashed : hashed.substring(0, dot);
+        return imageUrl.substring(0, at + 1) + THUMBNAIL_PREFIX + hash + ".png";
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public record PreparedImage(Path file, String blobName, String thumbnailBlobName) {
+    }
+}
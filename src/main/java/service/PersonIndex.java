@@ -0,0 +1,100 @@
+package service;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import model.Person;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+// In-memory indexes over the loaded Person records: a hash index on email and row counts
+// per major and department. Attached to an ObservableList it is updated from each change
+// instead of rescanning. (Name lookups go through PersonSearchIndex.)
+// Not thread-safe: use it from the thread that modifies the list (the FX thread).
+public class PersonIndex {
+
+    private final Map<String, Person> byEmail = new HashMap<>();
+    private final Map<String, Long> majorCounts = new HashMap<>();
+    private final Map<String, Long> departmentCounts = new HashMap<>();
+    private int size;
+
+    private final ListChangeListener<Person> listener = change -> {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                continue;
+            }
+            for (Person removed : change.getRemoved()) {
+                remove(removed);
+            }
+            for (Person added : change.getAddedSubList()) {
+                add(added);
+            }
+        }
+    };
+
+    // Index the current contents and follow every later change of the list.
+    public void attach(ObservableList<Person> list) {
+        for (Person person : list) {
+            add(person);
+        }
+        list.addListener(listener);
+    }
+
+    public void detach(ObservableList<Person> list) {
+        list.removeListener(listener);
+        clear();
+    }
+
+    public void add(Person person) {
+        size++;
+        if (person.getEmail() != null) {
+            byEmail.put(key(person.getEmail()), person);
+        }
+        majorCounts.merge(Objects.toString(person.getMajor(), ""), 1L, Long::sum);
+        departmentCounts.merge(Objects.toString(person.getDepartment(), ""), 1L, Long::sum);
+    }
+
+    public void remove(Person person) {
+        size--;
+        if (person.getEmail() != null) {
+            byEmail.remove(key(person.getEmail()), person);
+        }
+        decrement(majorCounts, Objects.toString(person.getMajor(), ""));
+        decrement(departmentCounts, Objects.toString(person.getDepartment(), ""));
+    }
+
+    public void clear() {
+        byEmail.clear();
+        majorCounts.clear();
+        departmentCounts.clear();
+        size = 0;
+    }
+
+    public Person findByEmail(String email) {
+        return email == null ? null : byEmail.get(key(email));
+    }
+
+    // Rows per major (blank for none), the same shape as UserRepository.countByMajor
+    public Map<String, Long> getMajorCounts() {
+        return Collections.unmodifiableMap(majorCounts);
+    }
+
+    public Map<String, Long> getDepartmentCounts() {
+        return Collections.unmodifiableMap(departmentCounts);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static void decrement(Map<String, Long> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
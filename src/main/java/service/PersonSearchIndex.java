@@ -0,0 +1,242 @@
+package service;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Token index for the search bar: every word of a person's name, email, department and
+// major maps to the people containing it. A query matches people having, for each query
+// term, a token starting with that term (or one typo away from it when nothing starts with it).
+// Lookups touch the index once per query; fuzzy matching probes the one-edit variants of
+// the term rather than scanning all tokens.
+// Not thread-safe: use it from the thread that modifies the list (the FX thread).
+public class PersonSearchIndex {
+
+    // Shorter terms only use prefix matching; fuzzy matching them would match almost anything
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final String WORD_SEPARATOR = "[^\\p{L}\\p{N}]+";
+
+    private final TreeMap<String, Set<Person>> tokens = new TreeMap<>();
+    // Tokens each person was indexed under, so removal does not depend on the current field values
+    private final Map<Person, List<String>> tokensByPerson = new IdentityHashMap<>();
+
+    private final ListChangeListener<Person> listener = change -> {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                continue;
+            }
+            for (Person removed : change.getRemoved()) {
+                remove(removed);
+            }
+            for (Person added : change.getAddedSubList()) {
+                add(added);
+            }
+        }
+    };
+
+    public void attach(ObservableList<Person> list) {
+        for (Person person : list) {
+            add(person);
+        }
+        list.addListener(listener);
+    }
+
+    public void add(Person person) {
+        List<String> personTokens = tokenize(person);
+        tokensByPerson.put(person, personTokens);
+        for (String token : personTokens) {
+            tokens.computeIfAbsent(token, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(person);
+        }
+    }
+
+    public void remove(Person person) {
+        List<String> personTokens = tokensByPerson.remove(person);
+        if (personTokens == null) {
+            return;
+        }
+        for (String token : personTokens) {
+            Set<Person> people = tokens.get(token);
+            if (people != null) {
+                people.remove(person);
+                if (people.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    // People matching every term of the query; null means the query is blank (no filtering).
+    public Set<Person> search(String query) {
+        List<String> terms = split(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        // Only the longest term (usually the most selective) is looked up in the index;
+        // the other terms are checked against the few tokens of each candidate.
+        terms.sort((a, b) -> b.length() - a.length());
+        Set<Person> result = match(terms.get(0));
+        for (String term : terms.subList(1, terms.size())) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result.removeIf(person -> !hasMatchingToken(tokensByPerson.get(person), term));
+        }
+        return result;
+    }
+
+    // Whether a person that is not in the index (e.g. found by the database) matches the query
+    public static boolean matches(Person person, String query) {
+        List<String> personTokens = tokenize(person);
+        for (String term : split(query)) {
+            if (!hasMatchingToken(personTokens, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The longest word of the query as typed, for a prefix lookup in the database
+    public static String longestTerm(String query) {
+        String longest = "";
+        if (query != null) {
+            for (String word : query.trim().split(WORD_SEPARATOR)) {
+                if (word.length() > longest.length()) {
+                    longest = word;
+                }
+            }
+        }
+        return longest;
+    }
+
+    public int tokenCount() {
+        return tokens.size();
+    }
+
+    private Set<Person> match(String term) {
+        Set<Person> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Set<Person> people : tokens.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            matches.addAll(people);
+        }
+        if (matches.isEmpty() && term.length() >= MIN_FUZZY_LENGTH) {
+            // Typo tolerance: look up every token one edit away instead of scanning the index
+            for (String variant : oneEditVariants(term)) {
+                Set<Person> people = tokens.get(variant);
+                if (people != null) {
+                    matches.addAll(people);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static boolean hasMatchingToken(List<String> personTokens, String term) {
+        for (String token : personTokens) {
+            if (token.startsWith(term)) {
+                return true;
+            }
+        }
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            for (String token : personTokens) {
+                if (withinOneEdit(term, token)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // All strings one deletion, substitution, insertion or transposition away from term.
+    private static Set<String> oneEditVariants(String term) {
+        Set<String> variants = new HashSet<>();
+        String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i <= term.length(); i++) {
+            String head = term.substring(0, i);
+            if (i < term.length()) {
+                String tail = term.substring(i + 1);
+                variants.add(head + tail);
+                if (i + 1 < term.length()) {
+                    variants.add(head + term.charAt(i + 1) + term.charAt(i) + term.substring(i + 2));
+                }
+                for (int c = 0; c < alphabet.length(); c++) {
+                    variants.add(head + alphabet.charAt(c) + tail);
+                }
+            }
+            for (int c = 0; c < alphabet.length(); c++) {
+                variants.add(head + alphabet.charAt(c) + term.substring(i));
+            }
+        }
+        return variants;
+    }
+
+    private static List<String> tokenize(Person person) {
+        Set<String> unique = new HashSet<>();
+        for (String field : new String[]{person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getDepartment(), person.getMajor()}) {
+            unique.addAll(split(field));
+        }
+        String email = person.getEmail();
+        if (email != null && !email.isBlank()) {
+            // Also index the whole address so pasted emails match exactly
+            unique.add(email.trim().toLowerCase(Locale.ROOT));
+        }
+        return new ArrayList<>(unique);
+    }
+
+    private static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split(WORD_SEPARATOR)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // True if b can be made from a with at most one insertion, deletion, substitution or
+    // transposition of adjacent characters, the same edits oneEditVariants generates.
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (Math.abs(lengthDiff) > 1) {
+            return false;
+        }
+        int i = 0;
+        int j = 0;
+        boolean edited = false;
+        while (i < a.length() && j < b.length()) {
+            if (a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            if (edited) {
+                return false;
+            }
+            edited = true;
+            if (lengthDiff > 0) {
+                i++;
+            } else if (lengthDiff < 0) {
+                j++;
+            } else if (i + 1 < a.length() && a.charAt(i) == b.charAt(j + 1) && a.charAt(i + 1) == b.charAt(j)) {
+                i += 2;
+                j += 2;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return !edited || (i == a.length() && j == b.length());
+    }
+}
@@ -0,0 +1,347 @@
+package service;
+
+import model.Person;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Builds PDF reports from a single pass over the users. Summary reports aggregate while the
+// rows stream by and then draw a bar chart and a table; the roster writes each row as it
+// arrives. Pages are laid out as they fill up, and page content is buffered in temp files,
+// so memory use stays flat even for a 100k-row roster.
+public class ReportGenerator {
+
+    public enum ReportType {
+        BY_MAJOR("Students by Major"),
+        BY_DEPARTMENT("Students by Department"),
+        FULL_ROSTER("Student Roster");
+
+        private final String title;
+
+        ReportType(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    // Feeds every user to the consumer, e.g. page by page from the database
+    public interface RowSource {
+        void forEach(Consumer<Person> action);
+    }
+
+    public interface ProgressListener {
+        void progress(long rowsRead, long totalRows);
+    }
+
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final PDFont BOLD = PDType1Font.HELVETICA_BOLD;
+    private static final float MARGIN = 40;
+    private static final float ROW_HEIGHT = 13;
+    private static final float FONT_SIZE = 9;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+    private static final Color BAR_COLOR = new Color(70, 110, 170);
+    private static final Color RULE_COLOR = new Color(200, 200, 200);
+
+    private static final String[] ROSTER_HEADERS = {"ID", "First Name", "Last Name", "Department", "Major", "Email"};
+    private static final float[] ROSTER_WIDTHS = {40, 80, 80, 100, 90, 142};
+
+    private ProgressListener progressListener = (rowsRead, totalRows) -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    // Write the report to output and return the number of users it covers.
+    // totalRows is only used for progress (pass -1 if unknown).
+    public long generate(ReportType type, RowSource source, long totalRows, Path output) throws IOException {
+        long start = System.nanoTime();
+        long rows;
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PageWriter writer = new PageWriter(document, type.getTitle());
+            try {
+                rows = type == ReportType.FULL_ROSTER
+                        ? writeRoster(writer, source, totalRows)
+                        : writeSummary(writer, type, source, totalRows);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                writer.close();
+            }
+            document.save(output.toFile());
+        }
+        MyLogger.makeLog("Report '" + type.getTitle() + "': " + rows + " rows in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return rows;
+    }
+
+    // Write a by-major or by-department report from counts that were already aggregated
+    // (e.g. by a GROUP BY query), without reading any rows.
+    public long generateSummary(ReportType type, Map<String, Long> groupCounts, Path output) throws IOException {
+        if (type == ReportType.FULL_ROSTER) {
+            throw new IllegalArgumentException("The roster needs the rows, not counts");
+        }
+        Map<String, Long> counts = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, Long> entry : groupCounts.entrySet()) {
+            counts.merge(label(entry.getKey()), entry.getValue(), Long::sum);
+            total += entry.getValue();
+        }
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PageWriter writer = new PageWriter(document, type.getTitle());
+            try {
+                renderSummary(writer, type, counts, total);
+            } finally {
+                writer.close();
+            }
+            document.save(output.toFile());
+        }
+        return total;
+    }
+
+    private long writeSummary(PageWriter writer, ReportType type, RowSource source, long totalRows) throws IOException {
+        Map<String, Long> counts = new TreeMap<>();
+        long[] rows = new long[1];
+        source.forEach(person -> {
+            counts.merge(label(type == ReportType.BY_MAJOR ? person.getMajor() : person.getDepartment()),
+                    1L, Long::sum);
+            countRow(++rows[0], totalRows);
+        });
+        progressListener.progress(rows[0], totalRows);
+        renderSummary(writer, type, counts, rows[0]);
+        return rows[0];
+    }
+
+    private void renderSummary(PageWriter writer, ReportType type, Map<String, Long> counts, long total)
+            throws IOException {
+        writer.paragraph(BOLD, 11, "Total students: " + total);
+        writer.paragraph(FONT, FONT_SIZE, "");
+        writer.barChart(counts);
+        writer.paragraph(FONT, FONT_SIZE, "");
+
+        String category = type == ReportType.BY_MAJOR ? "Major" : "Department";
+        float[] widths = {300, 100, 100};
+        writer.setTableHeader(new String[]{category, "Students", "Share"}, widths);
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            double share = total == 0 ? 0 : entry.getValue() * 100.0 / total;
+            writer.tableRow(new String[]{entry.getKey(), Long.toString(entry.getValue()),
+                    String.format("%.1f%%", share)}, widths);
+        }
+    }
+
+    private static String label(String category) {
+        return category == null || category.isBlank() ? "(none)" : category;
+    }
+
+    private long writeRoster(PageWriter writer, RowSource source, long totalRows) throws IOException {
+        long[] rows = new long[1];
+        writer.setTableHeader(ROSTER_HEADERS, ROSTER_WIDTHS);
+        String[] cells = new String[ROSTER_HEADERS.length];
+        source.forEach(person -> {
+            cells[0] = String.valueOf(person.getId());
+            cells[1] = person.getFirstName();
+            cells[2] = person.getLastName();
+            cells[3] = person.getDepartment();
+            cells[4] = person.getMajor();
+            cells[5] = person.getEmail();
+            try {
+                writer.tableRow(cells, ROSTER_WIDTHS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            countRow(++rows[0], totalRows);
+        });
+        progressListener.progress(rows[0], totalRows);
+        return rows[0];
+    }
+
+    private void countRow(long rows, long totalRows) {
+        if (rows % PROGRESS_EVERY_ROWS == 0) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Report cancelled");
+            }
+            progressListener.progress(rows, totalRows);
+        }
+    }
+
+    // Replace characters the standard Type 1 fonts cannot encode (WinAnsi covers Latin-1).
+    static String printable(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 32 || c > 255 || (c >= 127 && c < 160)) {
+                if (sb == null) {
+                    sb = new StringBuilder(text);
+                }
+                sb.setCharAt(i, c < 32 ? ' ' : '?');
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    // Lays text, tables and charts out top to bottom, starting a new page when the current one is full.
+    private static class PageWriter {
+        private final PDDocument document;
+        private final String title;
+        private final String generatedAt;
+        private final PDRectangle size = PDRectangle.LETTER;
+        private PDPageContentStream content;
+        private float y;
+        private int pageNumber;
+        private String[] tableHeader;
+        private float[] tableWidths;
+
+        PageWriter(PDDocument document, String title) throws IOException {
+            this.document = document;
+            this.title = title;
+            this.generatedAt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+            newPage();
+        }
+
+        void paragraph(PDFont font, float fontSize, String text) throws IOException {
+            ensureSpace(fontSize + 4);
+            text(MARGIN, y - fontSize, font, fontSize, text);
+            y -= fontSize + 4;
+        }
+
+        // Horizontal bars, one per category, scaled to the largest count
+        void barChart(Map<String, Long> counts) throws IOException {
+            long max = 1;
+            for (long count : counts.values()) {
+                max = Math.max(max, count);
+            }
+            float labelWidth = 150;
+            float barSpace = size.getWidth() - 2 * MARGIN - labelWidth - 50;
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                ensureSpace(ROW_HEIGHT + 2);
+                float barWidth = Math.max(1, barSpace * entry.getValue() / max);
+                text(MARGIN, y - FONT_SIZE, FONT, FONT_SIZE, fit(entry.getKey(), FONT, FONT_SIZE, labelWidth - 6));
+                content.setNonStrokingColor(BAR_COLOR);
+                content.addRect(MARGIN + labelWidth, y - ROW_HEIGHT + 2, barWidth, ROW_HEIGHT - 3);
+                content.fill();
+                content.setNonStrokingColor(Color.BLACK);
+                text(MARGIN + labelWidth + barWidth + 4, y - FONT_SIZE, FONT, FONT_SIZE,
+                        Long.toString(entry.getValue()));
+                y -= ROW_HEIGHT + 2;
+            }
+        }
+
+        // Header repeated at the top of every page the table continues on
+        void setTableHeader(String[] header, float[] widths) throws IOException {
+            this.tableHeader = header;
+            this.tableWidths = widths;
+            ensureSpace(ROW_HEIGHT * 2);
+            drawRow(header, widths, BOLD);
+        }
+
+        void tableRow(String[] cells, float[] widths) throws IOException {
+            if (y - ROW_HEIGHT < MARGIN + ROW_HEIGHT) {
+                newPage();
+                if (tableHeader != null) {
+                    drawRow(tableHeader, tableWidths, BOLD);
+                }
+            }
+            drawRow(cells, widths, FONT);
+        }
+
+        void close() throws IOException {
+            if (content != null) {
+                content.close();
+                content = null;
+            }
+        }
+
+        private void drawRow(String[] cells, float[] widths, PDFont font) throws IOException {
+            float x = MARGIN;
+            for (int i = 0; i < cells.length; i++) {
+                text(x + 2, y - FONT_SIZE - 1, font, FONT_SIZE, fit(cells[i], font, FONT_SIZE, widths[i] - 4));
+                x += widths[i];
+            }
+            y -= ROW_HEIGHT;
+            content.setStrokingColor(RULE_COLOR);
+            content.moveTo(MARGIN, y);
+            content.lineTo(x, y);
+            content.stroke();
+        }
+
+        private void ensureSpace(float height) throws IOException {
+            if (y - height < MARGIN + ROW_HEIGHT) {
+                newPage();
+            }
+        }
+
+        // Finish the current page's stream and start the next page with its heading and footer
+        private void newPage() throws IOException {
+            close();
+            PDPage page = new PDPage(size);
+            document.addPage(page);
+            content = new PDPageContentStream(document, page);
+            pageNumber++;
+            y = size.getHeight() - MARGIN;
+            text(MARGIN, y - 14, BOLD, 14, title);
+            text(size.getWidth() - MARGIN - 120, y - 14, FONT, 8, "Generated " + generatedAt);
+            text(size.getWidth() / 2 - 15, MARGIN / 2, FONT, 8, "Page " + pageNumber);
+            y -= 28;
+        }
+
+        private void text(float x, float textY, PDFont font, float fontSize, String text) throws IOException {
+            content.beginText();
+            content.setFont(font, fontSize);
+            content.newLineAtOffset(x, textY);
+            content.showText(printable(text));
+            content.endText();
+        }
+
+        // Cut text to the column width, marking the cut with "..."
+        private static String fit(String text, PDFont font, float fontSize, float width) throws IOException {
+            String value = printable(text);
+            if (font.getStringWidth(value) / 1000 * fontSize <= width) {
+                return value;
+            }
+            float ellipsis = font.getStringWidth("...") / 1000 * fontSize;
+            StringBuilder sb = new StringBuilder();
+            float used = 0;
+            for (int i = 0; i < value.length(); i++) {
+                float w = font.getStringWidth(String.valueOf(value.charAt(i))) / 1000 * fontSize;
+                if (used + w + ellipsis > width) {
+                    break;
+                }
+                used += w;
+                sb.append(value.charAt(i));
+            }
+            return sb.append("...").toString();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package service;
+
+import dao.BlobStore;
+import dao.StorageUploader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Queue of image uploads worked off by a small pool of upload workers. Failed uploads are
+// retried with exponential backoff (StorageUploader resumes from the staged blocks), and
+// unfinished work is kept in a journal file so it is picked up again after a restart.
+// Listener callbacks arrive on the queue's threads.
+public class UploadQueue {
+
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".bmp"};
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    public enum State { QUEUED, UPLOADING, WAITING_TO_RETRY, DONE, FAILED }
+
+    public interface Listener {
+        // Called about once a second while uploads are pending, and when the queue drains
+        void onStats(Stats stats);
+
+        // Called when a job succeeds (error is null) or gives up after its last attempt
+        void onJobFinished(UploadJob job, Exception error);
+    }
+
+    private final StorageUploader uploader;
+    private final Path journal;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+
+    // Unfinished jobs in submission order; also what the journal holds
+    private final Map<Long, UploadJob> jobs = new LinkedHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private volatile Listener listener;
+    private volatile ImagePreprocessor preprocessor;
+
+    // Throughput and aggregate progress of the current batch (reset when the queue drains)
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private long batchBytes;
+    private long batchBytesDone;
+    private int completed;
+    private int failed;
+    private long lastSampleBytes;
+    private long lastSampleNanos = System.nanoTime();
+    private volatile double bytesPerSecond;
+
+    public UploadQueue(StorageUploader uploader, Path journal, int workerCount, int maxAttempts,
+                       long baseBackoffMillis) {
+        this.uploader = uploader;
+        this.journal = journal;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.workers = Executors.newFixedThreadPool(workerCount, new QueueThreadFactory("upload-worker-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(new QueueThreadFactory("upload-queue-timer-"));
+        timer.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Name blobs by content hash, skip ones already stored and add thumbnails from now on
+    public void setPreprocessor(ImagePreprocessor preprocessor) {
+        this.preprocessor = preprocessor;
+    }
+
+    // Re-queue the uploads the journal says were still pending when the app last stopped.
+    public int restore() throws IOException {
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        int restored = 0;
+        for (String line : lines) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            Path file = Path.of(fields[2]);
+            if (Files.isRegularFile(file)) {
+                enqueue(file, fields[0], fields[1].isEmpty() ? null : Integer.valueOf(fields[1]));
+                restored++;
+            }
+        }
+        writeJournal();
+        return restored;
+    }
+
+    public UploadJob enqueue(Path file) throws IOException {
+        return enqueue(file, file.getFileName().toString());
+    }
+
+    public UploadJob enqueue(Path file, String blobName) throws IOException {
+        return enqueue(file, blobName, null);
+    }
+
+    // Upload a new picture for the user with this id; the id is journaled with the job, so the
+    // record can still be pointed at the image when the upload finishes after a restart
+    public UploadJob enqueueForPerson(Path file, int personId) throws IOException {
+        return enqueue(file, file.getFileName().toString(), personId);
+    }
+
+    private UploadJob enqueue(Path file, String blobName, Integer personId) throws IOException {
+        UploadJob job = new UploadJob(nextId.incrementAndGet(), file, blobName, Files.size(file), personId);
+        synchronized (this) {
+            jobs.put(job.id, job);
+            batchBytes += job.size;
+        }
+        writeJournal();
+        workers.execute(() -> run(job));
+        return job;
+    }
+
+    public List<UploadJob> enqueueAll(List<Path> files) throws IOException {
+        List<UploadJob> queued = new ArrayList<>(files.size());
+        for (Path file : files) {
+            queued.add(enqueue(file));
+        }
+        return queued;
+    }
+
+    // Queue every image file directly inside the directory.
+    public List<UploadJob> enqueueDirectory(Path dir) throws IOException {
+        List<Path> images;
+        try (Stream<Path> files = Files.list(dir)) {
+            images = files.filter(Files::isRegularFile).filter(UploadQueue::isImage).sorted().toList();
+        }
+        return enqueueAll(images);
+    }
+
+    public synchronized List<UploadJob> getPendingJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public synchronized Stats getStats() {
+        int active = 0;
+        for (UploadJob job : jobs.values()) {
+            if (job.state == State.UPLOADING) {
+                active++;
+            }
+        }
+        double progress = batchBytes == 0 ? 1.0 : (double) batchBytesDone / batchBytes;
+        return new Stats(jobs.size(), active, completed, failed, bytesPerSecond, Math.min(1.0, progress));
+    }
+
+    // Stop the workers; unfinished uploads stay in the journal for the next start.
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void run(UploadJob job) {
+        job.state = State.UPLOADING;
+        job.attempts++;
+        try {
+            ImagePreprocessor current = preprocessor;
+            if (current == null) {
+                uploader.upload(job.file, job.blobName, uploaded -> recordProgress(job, uploaded));
+            } else {
+                uploadPrepared(job, current);
+            }
+            job.url = uploader.getStore().getUrl(job.blobName);
+        } catch (InterruptedException e) {
+            // Shutting down; the journal still lists the job
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            if (job.attempts < maxAttempts) {
+                job.state = State.WAITING_TO_RETRY;
+                long backoff = Math.min(MAX_BACKOFF_MS, baseBackoffMillis << (job.attempts - 1));
+                long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+                MyLogger.makeLog("Upload of " + job.file + " failed (attempt " + job.attempts + "), retrying in "
+                        + (backoff + jitter) + " ms: " + e.getMessage());
+                timer.schedule(() -> workers.execute(() -> run(job)), backoff + jitter, TimeUnit.MILLISECONDS);
+                return;
+            }
+            finish(job, State.FAILED, e);
+            return;
+        }
+        finish(job, State.DONE, null);
+    }
+
+    private void uploadPrepared(UploadJob job, ImagePreprocessor current) throws IOException, InterruptedException {
+        ImagePreprocessor.PreparedImage prepared = current.prepare(job.file);
+        job.blobName = prepared.blobName();
+        BlobStore store = uploader.getStore();
+        if (store.exists(prepared.blobName())) {
+            // Same content was uploaded before, by this or another file
+            recordProgress(job, job.size);
+        } else {
+            uploader.upload(job.file, prepared.blobName(), uploaded -> recordProgress(job, uploaded));
+        }
+
+        String thumbnailName = prepared.thumbnailBlobName();
+        if (!store.exists(thumbnailName)) {
+            Path thumbnail;
+            try {
+                thumbnail = current.renderThumbnail(job.file);
+            } catch (IOException e) {
+                // A picture ImageIO cannot decode still gets uploaded, just without a thumbnail
+                MyLogger.makeLog("No thumbnail for " + job.file + ": " + e.getMessage());
+                return;
+            }
+            if (thumbnail == null) {
+                return;
+            }
+            try {
+                uploader.upload(thumbnail, thumbnailName, uploaded -> { });
+            } finally {
+                Files.deleteIfExists(thumbnail);
+            }
+        }
+        job.thumbnailUrl = store.getUrl(thumbnailName);
+    }
+
+    private void recordProgress(UploadJob job, long uploaded) {
+        long delta;
+        synchronized (this) {
+            // A retry reports the already staged blocks again; only count new bytes
+            delta = Math.max(0, uploaded - job.bytesUploaded);
+            job.bytesUploaded = Math.max(job.bytesUploaded, uploaded);
+            batchBytesDone += delta;
+        }
+        bytesUploaded.addAndGet(delta);
+    }
+
+    private void finish(UploadJob job, State state, Exception error) {
+        job.state = state;
+        boolean drained;
+        synchronized (this) {
+            jobs.remove(job.id);
+            if (state == State.DONE) {
+                completed++;
+            } else {
+                failed++;
+                batchBytesDone += job.size - job.bytesUploaded;
+            }
+            drained = jobs.isEmpty();
+        }
+        try {
+            writeJournal();
+        } catch (IOException e) {
+            MyLogger.makeLog("Could not update upload journal: " + e.getMessage());
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onJobFinished(job, error);
+            if (drained) {
+                current.onStats(getStats());
+            }
+        }
+        if (drained) {
+            synchronized (this) {
+                batchBytes = 0;
+                batchBytesDone = 0;
+                completed = 0;
+                failed = 0;
+            }
+        }
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        long total = bytesUploaded.get();
+        double seconds = (now - lastSampleNanos) / 1e9;
+        double rate = (total - lastSampleBytes) / seconds;
+        // Smooth the readout a little so it does not jump with every block
+        bytesPerSecond = bytesPerSecond == 0 ? rate : 0.5 * bytesPerSecond + 0.5 * rate;
+        lastSampleBytes = total;
+        lastSampleNanos = now;
+        Listener current = listener;
+        boolean pending;
+        synchronized (this) {
+            pending = !jobs.isEmpty();
+        }
+        if (current != null && pending) {
+            current.onStats(getStats());
+        }
+    }
+
+    // Rewrite the journal with the unfinished jobs: blob name, person id (empty if none) and file
+    // path, tab separated. Temporary ids of rows not saved yet mean nothing after a restart.
+    private synchronized void writeJournal() throws IOException {
+        Path dir = journal.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, journal.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (UploadJob job : jobs.values()) {
+                String personId = job.personId != null && job.personId > 0 ? job.personId.toString() : "";
+                writer.write(job.blobName + "\t" + personId + "\t" + job.file.toAbsolutePath());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : IMAGE_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class UploadJob {
+        private final long id;
+        private final Path file;
+        private final long size;
+        // The user whose picture this is, or null for a plain upload
+        private final Integer personId;
+        // Content-addressed name once the preprocessor has hashed the file
+        private volatile String blobName;
+        private volatile State state = State.QUEUED;
+        private volatile int attempts;
+        private volatile long bytesUploaded;
+        private volatile String url;
+        private volatile String thumbnailUrl;
+
+        UploadJob(long id, Path file, String blobName, long size, Integer personId) {
+            this.id = id;
+            this.file = file;
+            this.blobName = blobName;
+            this.size = size;
+            this.personId = personId;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public Integer getPersonId() {
+            return personId;
+        }
+
+        public String getBlobName() {
+            return blobName;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        // Where the uploaded image can be read from, once the job is DONE
+        public String getUrl() {
+            return url;
+        }
+
+        // The uploaded thumbnail, or null if none could be made (the image is then used as is)
+        public String getThumbnailUrl() {
+            return thumbnailUrl;
+        }
+
+        public double getProgress() {
+            return size == 0 ? 1.0 : (double) bytesUploaded / size;
+        }
+    }
+
+    public record Stats(int queueDepth, int active, int completed, int failed, double bytesPerSecond,
+                        double progress) {
+
+        public String describe() {
+            return String.format("Uploads: %d queued (%d active), %d done, %d failed, %.1f KB/s, %.0f%%",
+                    queueDepth, active, completed, failed, bytesPerSecond / 1024, progress * 100);
+        }
+    }
+
+    private static class QueueThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        QueueThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
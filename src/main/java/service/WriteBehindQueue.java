@@ -0,0 +1,735 @@
+package service;
+
+import dao.UpdateConflictException;
+import dao.UserRepository;
+import model.Person;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Inserts, edits and deletes made in the table view. Each one is appended to a local journal
+// and applied to the table right away; a background flusher replays them to the database in
+// batches. Writes to the same id are coalesced while they wait (the last edit wins, an insert
+// followed by a delete never reaches the server), and new rows carry a negative temporary id
+// until the server assigns the real one.
+//
+// A write the server rejects for good (a duplicate email, an edit of a row someone else
+// deleted) is dropped and reported as a conflict; any other failure (e.g. the server is
+// unreachable) keeps the writes queued and retries with a growing delay. Writes that were
+// being flushed when the app stopped are replayed from the journal; replaying is harmless
+// for edits and deletes, and a replayed insert shows up as a duplicate-email conflict.
+// Listener callbacks arrive on the flusher thread.
+public class WriteBehindQueue {
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    // BULK_UPDATE sets major and/or department on many rows with one UPDATE ... IN
+    public enum Operation { INSERT, UPDATE, DELETE, BULK_UPDATE }
+
+    public interface Listener {
+        // A queued insert was saved; replace the row with temporary id tempId by saved
+        void onInserted(int tempId, Person saved);
+
+        // A queued edit was saved, merged with other clients' changes if needed; saved is the
+        // row as stored, with its new version. Not called while a newer edit of the row is queued.
+        void onUpdated(Person saved);
+
+        // The server rejected the write; the row should be reloaded (or removed if it is gone)
+        void onConflict(PendingWrite write, Exception error);
+
+        // A flush finished; pending is the number of writes still waiting
+        void onFlushed(int applied, int pending);
+    }
+
+    private final UserRepository repository;
+    private final Path journal;
+    private final long flushIntervalMillis;
+
+    // Writes waiting for the next flush, one per id, oldest first
+    private final Map<Integer, PendingWrite> pending = new LinkedHashMap<>();
+    // Bulk updates in the order they were made, for rows without a queued write of their own
+    private final List<PendingWrite> bulkUpdates = new ArrayList<>();
+    // Writes taken by the running flush, still in the journal until it finishes
+    private final List<PendingWrite> flushing = new ArrayList<>();
+    private int nextTempId = -1;
+    // Temporary id -> server id, for writes made before the table caught up with an insert
+    private final Map<Integer, Integer> assignedIds = new HashMap<>();
+    private volatile Listener listener;
+    private ScheduledExecutorService flusher;
+    private boolean flushScheduled;
+    private long backoffMillis;
+
+    public WriteBehindQueue(UserRepository repository, Path journal, long flushIntervalMillis) {
+        this.repository = repository;
+        this.journal = journal;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Re-queue the writes the journal still lists from the last run; returns how many are pending.
+    public synchronized int restore() throws IOException {
+        if (Files.exists(journal)) {
+            for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                PendingWrite write = PendingWrite.parse(line);
+                if (write != null) {
+                    nextTempId = Math.min(nextTempId, write.id - 1);
+                    coalesce(write);
+                }
+            }
+        }
+        writeJournal();
+        return pending.size() + bulkUpdates.size();
+    }
+
+    // Flush queued writes on a daemon thread, flushIntervalMillis after they arrive
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleFlush(0);
+    }
+
+    // Stop flushing; queued writes stay in the journal for the next start.
+    public synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+            flushScheduled = false;
+        }
+    }
+
+    // Queue a new row and return it with its temporary (negative) id set.
+    public Person insert(Person person) throws IOException {
+        synchronized (this) {
+            person.setId(nextTempId--);
+            record(List.of(new PendingWrite(Operation.INSERT, person.getId(), person)));
+        }
+        return person;
+    }
+
+    public void update(int id, Person person) throws IOException {
+        update(id, person, null);
+    }
+
+    // person carries the version it was edited from. base is the row as it was before the edit;
+    // if someone else changes the row meanwhile, their changes to other columns are merged in.
+    // Without a base any concurrent change is reported as a conflict.
+    public void update(int id, Person person, Person base) throws IOException {
+        synchronized (this) {
+            record(List.of(new PendingWrite(Operation.UPDATE, id, withId(person, id),
+                    base == null ? null : withId(base, id))));
+        }
+    }
+
+    // Set major and/or department (null leaves it unchanged) on all of these rows
+    public void updateMajorAndDepartment(List<Integer> ids, String major, String department) throws IOException {
+        synchronized (this) {
+            record(List.of(PendingWrite.bulkUpdate(ids, major, department)));
+        }
+    }
+
+    public void delete(int id) throws IOException {
+        deleteAll(List.of(id));
+    }
+
+    // Queued together; the flush deletes them all with one DELETE ... IN
+    public void deleteAll(List<Integer> ids) throws IOException {
+        List<PendingWrite> writes = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            writes.add(new PendingWrite(Operation.DELETE, id, null));
+        }
+        synchronized (this) {
+            record(writes);
+        }
+    }
+
+    // Whether the server copy of this row is older than what the table shows
+    public synchronized boolean hasPending(int id) {
+        if (pending.containsKey(id)) {
+            return true;
+        }
+        for (List<PendingWrite> writes : List.of(bulkUpdates, flushing)) {
+            for (PendingWrite write : writes) {
+                if (write.id == id || write.ids.contains(id)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size() + bulkUpdates.size() + flushing.size();
+    }
+
+    // Replay the queued writes now; returns how many reached the server. Runs on the flusher
+    // thread; tests call it directly.
+    public int flush() {
+        List<PendingWrite> batch;
+        synchronized (this) {
+            if (pending.isEmpty() && bulkUpdates.isEmpty()) {
+                return 0;
+            }
+            batch = new ArrayList<>(bulkUpdates);
+            batch.addAll(pending.values());
+            bulkUpdates.clear();
+            pending.clear();
+            flushing.addAll(batch);
+        }
+
+        // Deletes free emails and edits may move them, so both go before the inserts. Bulk
+        // updates go before the per-row ones, which were made later or already include them.
+        List<PendingWrite> deletes = new ArrayList<>();
+        List<PendingWrite> bulk = new ArrayList<>();
+        List<PendingWrite> updates = new ArrayList<>();
+        List<PendingWrite> inserts = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            switch (write.operation) {
+                case DELETE -> deletes.add(write);
+                case BULK_UPDATE -> bulk.add(write);
+                case UPDATE -> updates.add(write);
+                case INSERT -> inserts.add(write);
+            }
+        }
+        List<PendingWrite> done = new ArrayList<>(batch.size());
+        Set<Integer> bulkUpdated = new HashSet<>();
+        RuntimeException failure = null;
+        try {
+            if (!deletes.isEmpty()) {
+                List<Integer> ids = new ArrayList<>(deletes.size());
+                for (PendingWrite write : deletes) {
+                    ids.add(write.id);
+                }
+                repository.deleteUsers(ids);
+                done.addAll(deletes);
+            }
+            for (PendingWrite write : bulk) {
+                // Rows deleted meanwhile are simply skipped; delta sync removes them from the table
+                repository.updateMajorAndDepartment(write.ids, write.person.getMajor(),
+                        write.person.getDepartment());
+                done.add(write);
+                bulkUpdated.addAll(write.ids);
+            }
+            for (PendingWrite write : updates) {
+                // Edits made after a bulk update of the row are based on it, one version on
+                applyUpdate(bulkUpdated.contains(write.id) ? write.nextVersion() : write);
+                done.add(write);
+            }
+            applyInserts(inserts, done);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        int remaining;
+        synchronized (this) {
+            flushing.clear();
+            if (failure != null) {
+                // Put the unapplied writes back in front of anything queued meanwhile
+                List<PendingWrite> newer = new ArrayList<>(bulkUpdates);
+                newer.addAll(pending.values());
+                bulkUpdates.clear();
+                pending.clear();
+                for (PendingWrite write : batch) {
+                    if (done.contains(write)) {
+                        continue;
+                    }
+                    if (write.operation == Operation.BULK_UPDATE) {
+                        bulkUpdates.add(write);
+                    } else {
+                        pending.put(write.id, write);
+                    }
+                }
+                for (PendingWrite write : newer) {
+                    coalesce(write);
+                }
+                backoffMillis = Math.min(MAX_BACKOFF_MS, Math.max(flushIntervalMillis, backoffMillis * 2));
+                MyLogger.makeLog("Write-behind flush failed, " + (pending.size() + bulkUpdates.size())
+                        + " writes kept for retry in "
+                        + backoffMillis + " ms: " + failure.getMessage());
+            } else {
+                backoffMillis = 0;
+            }
+            remaining = pending.size() + bulkUpdates.size();
+            try {
+                writeJournal();
+            } catch (IOException e) {
+                MyLogger.makeLog("Could not update write journal: " + e.getMessage());
+            }
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onFlushed(done.size(), remaining);
+        }
+        return done.size();
+    }
+
+    private void applyUpdate(PendingWrite write) {
+        try {
+            if (!repository.editUser(write.id, write.person)) {
+                conflict(write, new IllegalStateException("User " + write.id + " no longer exists"));
+                return;
+            }
+            updated(write, write.person);
+        } catch (UpdateConflictException e) {
+            // Someone else saved the row first: keep their changes to the columns this edit left alone
+            Person current = e.getCurrent();
+            Person merged = write.base == null ? null : merge(write.base, write.person, current);
+            if (merged == null) {
+                conflict(write, e);
+                return;
+            }
+            MyLogger.makeLog("Merged " + write + " with version " + current.getVersion() + " saved meanwhile");
+            try {
+                if (!repository.editUser(write.id, merged)) {
+                    conflict(write, new IllegalStateException("User " + write.id + " no longer exists"));
+                    return;
+                }
+            } catch (UpdateConflictException again) {
+                conflict(write, again);
+                return;
+            }
+            updated(write, merged);
+        } catch (RuntimeException e) {
+            if (!isConflict(e)) {
+                throw e;
+            }
+            conflict(write, e);
+        }
+    }
+
+    // One batch for all inserts; if the server rejects it, retry one by one to find the culprits.
+    private void applyInserts(List<PendingWrite> inserts, List<PendingWrite> done) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        List<Person> people = new ArrayList<>(inserts.size());
+        for (PendingWrite write : inserts) {
+            people.add(withId(write.person, null));
+        }
+        try {
+            repository.insertUsers(people);
+            for (int i = 0; i < inserts.size(); i++) {
+                inserted(inserts.get(i), people.get(i));
+                done.add(inserts.get(i));
+            }
+            return;
+        } catch (RuntimeException e) {
+            if (!isConflict(e)) {
+                throw e;
+            }
+            if (inserts.size() == 1) {
+                conflict(inserts.get(0), e);
+                done.add(inserts.get(0));
+                return;
+            }
+        }
+        for (PendingWrite write : inserts) {
+            applyInserts(List.of(write), done);
+        }
+    }
+
+    private void inserted(PendingWrite write, Person saved) {
+        synchronized (this) {
+            assignedIds.put(write.id, saved.getId());
+            // Edits and deletes queued against the temporary id now target the real one
+            PendingWrite later = pending.remove(write.id);
+            if (later != null) {
+                Operation operation = later.operation == Operation.INSERT ? Operation.UPDATE : later.operation;
+                pending.put(saved.getId(), new PendingWrite(operation, saved.getId(),
+                        withId(later.person, saved.getId()), withId(later.base, saved.getId())));
+            }
+            for (int i = 0; i < bulkUpdates.size(); i++) {
+                bulkUpdates.set(i, bulkUpdates.get(i).withAssignedIds(assignedIds));
+            }
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onInserted(write.id, saved);
+        }
+    }
+
+    private void updated(PendingWrite write, Person stored) {
+        Person saved = withId(stored, write.id);
+        saved.setVersion(stored.getVersion() + 1);
+        synchronized (this) {
+            if (pending.containsKey(write.id)) {
+                return;
+            }
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onUpdated(saved);
+        }
+    }
+
+    // Three-way merge, column by column: a column this edit did not change takes the current value.
+    // null if both this edit and the other client changed the same column to different values.
+    static Person merge(Person base, Person edit, Person current) {
+        String[] baseValues = PendingWrite.columns(base);
+        String[] editValues = PendingWrite.columns(edit);
+        String[] currentValues = PendingWrite.columns(current);
+        String[] merged = new String[editValues.length];
+        for (int i = 0; i < merged.length; i++) {
+            if (Objects.equals(editValues[i], baseValues[i])) {
+                merged[i] = currentValues[i];
+            } else if (Objects.equals(currentValues[i], baseValues[i])
+                    || Objects.equals(currentValues[i], editValues[i])) {
+                merged[i] = editValues[i];
+            } else {
+                return null;
+            }
+        }
+        Person person = new Person(edit.getId(), merged[0], merged[1], merged[2], merged[3], merged[4], merged[5]);
+        person.setVersion(current.getVersion());
+        return person;
+    }
+
+    private void conflict(PendingWrite write, Exception error) {
+        MyLogger.makeLog("Write-behind conflict, dropped " + write + ": " + error.getMessage());
+        Listener current = listener;
+        if (current != null) {
+            current.onConflict(write, error);
+        }
+    }
+
+    // Append to the journal first (one write for all of them), then queue; called with the lock held.
+    private void record(List<PendingWrite> writes) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        List<PendingWrite> translated = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            write = write.withAssignedIds(assignedIds);
+            translated.add(write);
+            lines.append(write.format()).append(System.lineSeparator());
+        }
+        Files.createDirectories(journal.toAbsolutePath().getParent());
+        Files.writeString(journal, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        for (PendingWrite write : translated) {
+            coalesce(write);
+        }
+        scheduleFlush(flushIntervalMillis);
+    }
+
+    // Merge a write with the one already queued for its id; called with the lock held.
+    private void coalesce(PendingWrite write) {
+        if (write.operation == Operation.BULK_UPDATE) {
+            // Rows with a queued insert or edit take the new values into it; deleted rows are skipped
+            List<Integer> remaining = new ArrayList<>(write.ids.size());
+            for (int id : write.ids) {
+                PendingWrite queued = pending.get(id);
+                if (queued == null) {
+                    remaining.add(id);
+                } else if (queued.operation != Operation.DELETE) {
+                    pending.put(id, new PendingWrite(queued.operation, id, write.applyTo(queued.person), queued.base));
+                }
+            }
+            if (!remaining.isEmpty()) {
+                bulkUpdates.add(PendingWrite.bulkUpdate(remaining, write.person.getMajor(),
+                        write.person.getDepartment()));
+            }
+            return;
+        }
+        PendingWrite queued = pending.get(write.id);
+        if (queued == null) {
+            pending.put(write.id, write);
+        } else if (queued.operation == Operation.INSERT && write.operation == Operation.DELETE) {
+            // Never reached the server
+            pending.remove(write.id);
+        } else if (queued.operation == Operation.INSERT) {
+            pending.put(write.id, new PendingWrite(Operation.INSERT, write.id, write.person));
+        } else if (queued.operation == Operation.UPDATE && write.operation == Operation.UPDATE) {
+            // Still based on the row as it was before the first of these edits
+            pending.put(write.id, new PendingWrite(Operation.UPDATE, write.id, write.person,
+                    queued.base));
+        } else {
+            pending.put(write.id, write);
+        }
+    }
+
+    // At most one flush is scheduled at a time, so a burst of writes goes out in one batch;
+    // called with the lock held.
+    private void scheduleFlush(long delayMillis) {
+        if (flusher == null || flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        flusher.schedule(this::scheduledFlush, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduledFlush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        flush();
+        synchronized (this) {
+            if (backoffMillis > 0) {
+                scheduleFlush(backoffMillis);
+            } else if (!pending.isEmpty() || !bulkUpdates.isEmpty()) {
+                scheduleFlush(flushIntervalMillis);
+            }
+        }
+    }
+
+    // Rewrite the journal with the writes not yet confirmed, compacting away coalesced ones;
+    // called with the lock held.
+    private void writeJournal() throws IOException {
+        Path dir = journal.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, journal.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (PendingWrite write : flushing) {
+                writer.write(write.format());
+                writer.newLine();
+            }
+            for (PendingWrite write : bulkUpdates) {
+                writer.write(write.format());
+                writer.newLine();
+            }
+            for (PendingWrite write : pending.values()) {
+                writer.write(write.format());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // A failed batch reports the rejected row as a chained "next" exception
+    private static boolean isConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getNextException() != null
+                    && isConflict(sqlException.getNextException())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Person withId(Person person, Integer id) {
+        if (person == null) {
+            return null;
+        }
+        Person copy = new Person(id, person.getFirstName(), person.getLastName(),
+                person.getDepartment(), person.getMajor(), person.getEmail(), person.getImageURL());
+        copy.setVersion(person.getVersion());
+        return copy;
+    }
+
+    public static class PendingWrite {
+        private static final String NULL = "\\N";
+
+        private final Operation operation;
+        private final int id;
+        private final Person person;
+        private final Person base;
+        private final List<Integer> ids;
+
+        PendingWrite(Operation operation, int id, Person person) {
+            this(operation, id, person, null);
+        }
+
+        PendingWrite(Operation operation, int id, Person person, Person base) {
+            this(operation, id, person, base, List.of());
+        }
+
+        private PendingWrite(Operation operation, int id, Person person, Person base, List<Integer> ids) {
+            this.operation = operation;
+            this.id = id;
+            this.person = person;
+            this.base = base;
+            this.ids = ids;
+        }
+
+        // Only major and department are set on the carried person; null means unchanged
+        static PendingWrite bulkUpdate(List<Integer> ids, String major, String department) {
+            return new PendingWrite(Operation.BULK_UPDATE, 0,
+                    new Person(null, null, null, department, major, null, null), null, List.copyOf(ids));
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        // Negative for a row the server has not assigned an id yet
+        public int getId() {
+            return id;
+        }
+
+        // The row's new values; null for a delete
+        public Person getPerson() {
+            return person;
+        }
+
+        // The row as it was before an update, for merging; null if unknown
+        public Person getBase() {
+            return base;
+        }
+
+        // The rows a bulk update changes; empty for the other operations
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        // A copy of the row with this bulk update's non-null major and department applied
+        Person applyTo(Person row) {
+            Person updated = new Person(row.getId(), row.getFirstName(), row.getLastName(),
+                    person.getDepartment() != null ? person.getDepartment() : row.getDepartment(),
+                    person.getMajor() != null ? person.getMajor() : row.getMajor(),
+                    row.getEmail(), row.getImageURL());
+            updated.setVersion(row.getVersion());
+            return updated;
+        }
+
+        // The same edit applied on top of one more saved version of the row
+        PendingWrite nextVersion() {
+            Person next = withId(person, id);
+            next.setVersion(person.getVersion() + 1);
+            return new PendingWrite(operation, id, next, base);
+        }
+
+        // Replace temporary ids the server has since assigned real ones for
+        PendingWrite withAssignedIds(Map<Integer, Integer> assignedIds) {
+            if (operation == Operation.BULK_UPDATE) {
+                List<Integer> translated = new ArrayList<>(ids.size());
+                for (int rowId : ids) {
+                    translated.add(assignedIds.getOrDefault(rowId, rowId));
+                }
+                return translated.equals(ids) ? this
+                        : new PendingWrite(operation, id, person, null, List.copyOf(translated));
+            }
+            Integer assigned = assignedIds.get(id);
+            return assigned == null ? this
+                    : new PendingWrite(operation, assigned, withId(person, assigned), withId(base, assigned));
+        }
+
+        // Tab separated: operation, id, then the six columns and the version for inserts and updates,
+        // followed by the six base columns for updates that have one.
+        // Bulk updates: operation, row count, major, department, comma separated ids.
+        String format() {
+            if (operation == Operation.BULK_UPDATE) {
+                StringBuilder sb = new StringBuilder(operation.name()).append('\t').append(ids.size())
+                        .append('\t').append(escape(person.getMajor()))
+                        .append('\t').append(escape(person.getDepartment())).append('\t');
+                for (int i = 0; i < ids.size(); i++) {
+                    sb.append(i == 0 ? "" : ",").append(ids.get(i));
+                }
+                return sb.toString();
+            }
+            StringBuilder sb = new StringBuilder(operation.name()).append('\t').append(id);
+            if (person != null) {
+                for (String value : columns(person)) {
+                    sb.append('\t').append(escape(value));
+                }
+                sb.append('\t').append(person.getVersion());
+            }
+            if (base != null) {
+                for (String value : columns(base)) {
+                    sb.append('\t').append(escape(value));
+                }
+            }
+            return sb.toString();
+        }
+
+        static String[] columns(Person person) {
+            return new String[]{person.getFirstName(), person.getLastName(), person.getDepartment(),
+                    person.getMajor(), person.getEmail(), person.getImageURL()};
+        }
+
+        private static Person fromColumns(int id, String[] fields, int from, int version) {
+            Person person = new Person(id, unescape(fields[from]), unescape(fields[from + 1]),
+                    unescape(fields[from + 2]), unescape(fields[from + 3]), unescape(fields[from + 4]),
+                    unescape(fields[from + 5]));
+            person.setVersion(version);
+            return person;
+        }
+
+        // null for a blank or malformed line
+        static PendingWrite parse(String line) {
+            String[] fields = line.split("\t", -1);
+            try {
+                Operation operation = Operation.valueOf(fields[0]);
+                int id = Integer.parseInt(fields[1]);
+                if (operation == Operation.DELETE) {
+                    return new PendingWrite(operation, id, null);
+                }
+                if (operation == Operation.BULK_UPDATE) {
+                    if (fields.length != 5) {
+                        return null;
+                    }
+                    List<Integer> rowIds = new ArrayList<>(id);
+                    for (String rowId : fields[4].split(",")) {
+                        rowIds.add(Integer.parseInt(rowId));
+                    }
+                    return rowIds.size() == id ? bulkUpdate(rowIds, unescape(fields[2]), unescape(fields[3])) : null;
+                }
+                // Six columns and the version, then the base's six columns if there is one
+                boolean hasBase = fields.length == 15;
+                if (fields.length != 9 && !hasBase) {
+                    return null;
+                }
+                int version = Integer.parseInt(fields[8]);
+                return new PendingWrite(operation, id, fromColumns(id, fields, 2, version),
+                        hasBase ? fromColumns(id, fields, 9, version) : null);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String unescape(String value) {
+            if (value.equals(NULL)) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return operation == Operation.BULK_UPDATE ? operation + " " + ids : operation + " " + id;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package viewmodel;
+
+import javafx.application.Platform;
+import javafx.scene.control.TableCell;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import model.Person;
+import service.ImageLoader;
+import service.ImagePreprocessor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Table cell showing a person's picture from its imageURL. The thumbnail is preferred: the one
+// an upload in this session reported, else the one named after a content-addressed image. If
+// the thumbnail cannot be loaded the full image is shown. When the cell is reused for another
+// row, the previous load is cancelled so rows scrolled past quickly do not queue downloads.
+public class AvatarTableCell extends TableCell<Person, String> {
+
+    private final ImageLoader loader;
+    private final double size;
+    // Image URL -> thumbnail URL of uploads that finished in this session (the image URL itself
+    // if no thumbnail was made)
+    private final Map<String, String> thumbnails;
+    private final ImageView imageView = new ImageView();
+    private String shownUrl;
+    private CompletableFuture<Image> pending;
+
+    public AvatarTableCell(ImageLoader loader, double size, Map<String, String> thumbnails) {
+        this.loader = loader;
+        this.size = size;
+        this.thumbnails = thumbnails;
+        imageView.setFitWidth(size);
+        imageView.setFitHeight(size);
+        imageView.setPreserveRatio(true);
+    }
+
+    @Override
+    protected void updateItem(String url, boolean empty) {
+        super.updateItem(url, empty);
+        if (empty || url == null || url.isBlank()) {
+            cancelPending();
+            shownUrl = null;
+            imageView.setImage(null);
+            setGraphic(null);
+            return;
+        }
+        setGraphic(imageView);
+        if (url.equals(shownUrl)) {
+            // Already showing (or loading) this picture
+            return;
+        }
+        cancelPending();
+        shownUrl = url;
+        imageView.setImage(null);
+        String thumbnailUrl = thumbnails.get(url);
+        if (thumbnailUrl == null) {
+            thumbnailUrl = ImagePreprocessor.thumbnailUrlFor(url);
+        }
+        show(thumbnailUrl != null ? thumbnailUrl : url, url);
+    }
+
+    // Load imageUrl, then fallbackUrl if that fails and is a different image
+    private void show(String imageUrl, String fallbackUrl) {
+        CompletableFuture<Image> load = loader.load(imageUrl, size);
+        pending = load;
+        load.whenComplete((image, ex) -> Platform.runLater(() -> {
+            if (pending != load) {
+                return;
+            }
+            pending = null;
+            if (ex == null) {
+                imageView.setImage(image);
+            } else if (!imageUrl.equals(fallbackUrl)) {
+                show(fallbackUrl, fallbackUrl);
+            }
+        }));
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package viewmodel;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import com.azure.storage.blob.BlobClient;
+import dao.AsyncDbConnectivity;
+import dao.ChangeSet;
+import dao.CsvExporter;
+import dao.CsvImporter;
 import dao.DbConnectivityClass;
+import dao.QueryPlanChecker;
 import dao.StorageUploader;
+import dao.UpdateConflictException;
+import dao.UserRepository;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -24,21 +31,35 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.Person;
+import service.DeltaSyncService;
+import service.ImageLoader;
+import service.ImagePreprocessor;
 import service.MyLogger;
+import service.PersonIndex;
+import service.PersonSearchIndex;
+import service.ReportGenerator;
+import service.UploadQueue;
+import service.WriteBehindQueue;
 import javafx.util.Duration;
 
 import java.io.*;
 import java.net.URL;
-import java.nio.file.Files;
+import java.sql.SQLException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 
-public class DB_GUI_Controller implements Initializable {
+public class DB_GUI_Controller implements Initializable, Navigator.Screen {
 
     // Add regex patterns for validation
     private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-z'-]{2,50}$");
@@ -47,9 +68,44 @@ public class DB_GUI_Controller implements Initializable {
 
     // Debounce delay for form validation (300ms)
     private PauseTransition debounce = new PauseTransition(Duration.millis(300));
-
-    // The StorageUploader instance for blob storage operations
-    StorageUploader store = new StorageUploader();
+    // Shorter debounce for the search bar so results follow typing closely
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(150));
+    // Searches slower than one frame (16 ms) are logged
+    private static final long SEARCH_BUDGET_NANOS = 16_000_000L;
+
+    // Blob storage client for the whole app; creating it is slow, so startup builds it in the background
+    private static StorageUploader storageUploader;
+
+    // One upload queue for the whole app; its journal lets pending uploads resume after a restart,
+    // e.g. -Dcsc311.upload.journal=/path/to/journal -Dcsc311.upload.workers=2
+    private static final Path UPLOAD_JOURNAL = Path.of(System.getProperty("csc311.upload.journal",
+            System.getProperty("user.home") + File.separator + ".csc311" + File.separator + "upload-journal.txt"));
+    private static final int UPLOAD_WORKERS = Integer.getInteger("csc311.upload.workers", 2);
+    private static final int UPLOAD_MAX_ATTEMPTS = 5;
+    private static UploadQueue uploadQueue;
+    private static final int THUMBNAIL_SIZE = 128;
+    // Uploads started with "Change Pic" for a selected record, whose imageURL they will set
+    private final Map<UploadQueue.UploadJob, Person> avatarUploads = new HashMap<>();
+
+    // Adds, edits and deletes are journaled locally and flushed to the database in the background,
+    // e.g. -Dcsc311.writes.journal=/path/to/journal -Dcsc311.writes.flushIntervalMs=500
+    private static final Path WRITE_JOURNAL = Path.of(System.getProperty("csc311.writes.journal",
+            System.getProperty("user.home") + File.separator + ".csc311" + File.separator + "write-journal.txt"));
+    private static final long WRITE_FLUSH_INTERVAL_MS = Long.getLong("csc311.writes.flushIntervalMs", 1000);
+    private static WriteBehindQueue writeQueue;
+
+    // Pictures for the avatar column and detail pane, cached in memory and on disk for the whole app,
+    // e.g. -Dcsc311.imageCache.dir=/tmp/images -Dcsc311.imageCache.entries=500
+    private static final Path IMAGE_CACHE_DIR = Path.of(System.getProperty("csc311.imageCache.dir",
+            System.getProperty("user.home") + File.separator + ".csc311" + File.separator + "image-cache"));
+    private static final int IMAGE_CACHE_ENTRIES = Integer.getInteger("csc311.imageCache.entries", 500);
+    private static final long IMAGE_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+    private static final double AVATAR_SIZE = 32;
+    private static final double DETAIL_IMAGE_SIZE = 256;
+    private static ImageLoader imageLoader;
+    // Thumbnail of each image uploaded in this session, by image URL, for the avatar column
+    private static final Map<String, String> uploadedThumbnails = new ConcurrentHashMap<>();
+    private CompletableFuture<Image> detailImageLoad;
 
     @FXML
     private Label statusLabel;
@@ -66,9 +122,22 @@ public class DB_GUI_Controller implements Initializable {
     @FXML
     private ProgressBar progressBar;
 
+    @FXML
+    private Button cancelBtn;
+
     @FXML
     private TextField first_name, last_name, department, major,email, imageURL;
 
+    @FXML
+    private TextField searchField;
+
+    // Dashboard counters, filled from server-side GROUP BY queries
+    @FXML
+    private Label dashTotal;
+    @FXML
+    private VBox dashMajors, dashDepartments;
+    private static final int DASHBOARD_ROWS = 6;
+
     @FXML
     private Label statusBar;
 
@@ -81,10 +150,45 @@ public class DB_GUI_Controller implements Initializable {
     @FXML
     private TableColumn<Person, Integer> tv_id;
     @FXML
-    private TableColumn<Person, String> tv_fn, tv_ln, tv_department, tv_major, tv_email;
+    private TableColumn<Person, String> tv_fn, tv_ln, tv_department, tv_major, tv_email, tv_avatar;
+
+    // Rows are loaded page by page as the table scrolls instead of all at once
+    static final int PAGE_SIZE = 200;
+    private static final int MAX_LOADED_ROWS = 2000;
+
+    // One DAO (and its shared cache) for all screens, so re-entering this view reuses cached pages
+    private final UserRepository cnUtil = DbConnectivityClass.cnUtil;
+    private final AsyncDbConnectivity asyncDb = new AsyncDbConnectivity(cnUtil);
+    private final ObservableList<Person> data = FXCollections.observableArrayList();
+    private final PagedUserLoader userLoader = new PagedUserLoader(asyncDb, data, PAGE_SIZE, MAX_LOADED_ROWS);
+    // Email lookups and per-major/department counts over the loaded rows, kept current by list changes
+    private final PersonIndex personIndex = new PersonIndex();
+    // Search bar: token index -> FilteredList predicate, with column sorting on top
+    private final PersonSearchIndex searchIndex = new PersonSearchIndex();
+    private final FilteredList<Person> filteredData = new FilteredList<>(data, p -> true);
+    private final SortedList<Person> sortedData = new SortedList<>(filteredData);
+    // While the window holds only part of the table, the table shows the loaded matches merged
+    // with rows found by a prefix query on the database
+    private static final int SERVER_SEARCH_LIMIT = 200;
+    private final ObservableList<Person> searchResults = FXCollections.observableArrayList();
+    private final SortedList<Person> sortedSearchResults = new SortedList<>(searchResults);
+    private CompletableFuture<List<Person>> serverSearch;
+
+    // Picks up other operators' inserts, edits and deletes and merges them into the loaded rows
+    private final DeltaSyncService deltaSync = new DeltaSyncService(cnUtil,
+            changes -> Platform.runLater(() -> {
+                if (changes.isFullReload()) {
+                    // Away too long to know every delete: read the loaded rows again
+                    runInBackground("Reloading records...", userLoader.loadFirstPage(),
+                            page -> statusBar.setText("Records reloaded."), "Error reloading records.");
+                } else {
+                    userLoader.applyChanges(withoutPendingWrites(changes));
+                }
+                refreshDashboard();
+            }));
 
-    private final DbConnectivityClass cnUtil = new DbConnectivityClass();
-    private final ObservableList<Person> data = cnUtil.getData();
+    // Database operations still running in the background, cancelled together by the Cancel button
+    private final Set<Future<?>> pendingOperations = new HashSet<>();
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -95,16 +199,36 @@ public class DB_GUI_Controller implements Initializable {
             tv_department.setCellValueFactory(new PropertyValueFactory<>("department"));
             tv_major.setCellValueFactory(new PropertyValueFactory<>("major"));
             tv_email.setCellValueFactory(new PropertyValueFactory<>("email"));
-            tv.setItems(data);
+            setupAvatars();
+            sortedData.comparatorProperty().bind(tv.comparatorProperty());
+            sortedSearchResults.comparatorProperty().bind(tv.comparatorProperty());
+            tv.setItems(sortedData);
+            personIndex.attach(data);
+            searchIndex.attach(data);
+            setupSearch();
+            cancelBtn.setDisable(true);
+            runInBackground("Loading records...", userLoader.loadFirstPage(),
+                    page -> statusBar.setText("Records loaded."), "Error loading records.");
+            userLoader.attach(tv);
+            setupWriteQueue();
+            userLoader.setPendingWrites(writeQueue::hasPending);
+            deltaSync.start();
+            setupUploadQueue();
+            refreshDashboard();
 
             // Initially disable buttons
             editBtn.setDisable(true);
             delBtn.setDisable(true);
             addBtn.setDisable(true);
 
+            // Several rows can be selected for bulk edit and delete
+            tv.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+            tv.getSelectionModel().getSelectedItems().addListener((ListChangeListener<Person>) change -> updateUIState());
+
             // Add listeners to the TableView for selection change
             tv.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
                 updateUIState();
+                showDetailImage(newValue);
             });
 
             // Add listeners to form fields for validation with debounce
@@ -124,6 +248,102 @@ public class DB_GUI_Controller implements Initializable {
         major.textProperty().addListener((observable, oldValue, newValue) -> setupValidationDelay());
     }
 
+    // Filter the table as the user types, after a short pause
+    private void setupSearch() {
+        searchDebounce.setOnFinished(e -> applySearch());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
+        // Rows loaded or added while a search is active are matched against it too
+        data.addListener((ListChangeListener<Person>) change -> {
+            if (!searchField.getText().isBlank()) {
+                searchDebounce.playFromStart();
+            }
+        });
+    }
+
+    private void applySearch() {
+        long start = System.nanoTime();
+        String query = searchField.getText();
+        Set<Person> matches = searchIndex.search(query);
+        filteredData.setPredicate(matches == null ? null : matches::contains);
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > SEARCH_BUDGET_NANOS) {
+            MyLogger.makeLog("Search for '" + query + "' took " + elapsed / 1_000_000 + " ms over "
+                    + data.size() + " rows");
+        }
+        if (serverSearch != null) {
+            serverSearch.cancel(false);
+            serverSearch = null;
+        }
+        if (matches == null || userLoader.isFullyLoaded()) {
+            showSearchResults(null);
+            statusBar.setText(matches == null ? "" : filteredData.size() + " matching records");
+            return;
+        }
+
+        // Rows outside the window are only found by last name or email prefix (both indexed)
+        statusBar.setText(filteredData.size() + " matching loaded records, searching the database...");
+        CompletableFuture<List<Person>> search = asyncDb.searchByPrefix(PersonSearchIndex.longestTerm(query),
+                SERVER_SEARCH_LIMIT);
+        serverSearch = search;
+        search.whenComplete((found, ex) -> Platform.runLater(() -> {
+            if (search != serverSearch) {
+                return; // replaced by a newer query
+            }
+            serverSearch = null;
+            if (ex != null) {
+                MyLogger.makeLog("Database search for '" + query + "' failed: " + ex.getMessage());
+                statusBar.setText(filteredData.size() + " matching loaded records");
+                return;
+            }
+            // Loaded rows win, they include local edits not yet saved
+            Map<Integer, Person> merged = new LinkedHashMap<>();
+            for (Person person : filteredData) {
+                merged.put(person.getId(), person);
+            }
+            for (Person person : found) {
+                if (!writeQueue.hasPending(person.getId()) && PersonSearchIndex.matches(person, query)) {
+                    merged.putIfAbsent(person.getId(), person);
+                }
+            }
+            showSearchResults(new ArrayList<>(merged.values()));
+            statusBar.setText(merged.size() + " matching records");
+        }));
+    }
+
+    // null shows the loaded window again
+    private void showSearchResults(List<Person> rows) {
+        if (rows == null) {
+            searchResults.clear();
+            if (tv.getItems() != sortedData) {
+                tv.setItems(sortedData);
+            }
+            return;
+        }
+        searchResults.setAll(rows);
+        if (tv.getItems() != sortedSearchResults) {
+            tv.setItems(sortedSearchResults);
+        }
+    }
+
+    // Keep rows shown from a database search in step with edits made to them
+    private void updateSearchResults(List<Person> upserts, List<Integer> deletedIds) {
+        if (searchResults.isEmpty()) {
+            return;
+        }
+        Map<Integer, Person> byId = new HashMap<>();
+        for (Person person : upserts) {
+            byId.put(person.getId(), person);
+        }
+        Set<Integer> deleted = new HashSet<>(deletedIds);
+        List<Person> rows = new ArrayList<>(searchResults.size());
+        for (Person person : searchResults) {
+            if (!deleted.contains(person.getId())) {
+                rows.add(byId.getOrDefault(person.getId(), person));
+            }
+        }
+        searchResults.setAll(rows);
+    }
+
     // Reset and start the debounce timer each time the user types in a field
     private void setupValidationDelay() {
         debounce.setOnFinished(e -> validateForm()); // Trigger validation after the delay
@@ -131,8 +351,7 @@ public class DB_GUI_Controller implements Initializable {
     }
 
     private void updateUIState() {
-        Person selectedPerson = tv.getSelectionModel().getSelectedItem();
-        boolean recordSelected = selectedPerson != null;
+        boolean recordSelected = !tv.getSelectionModel().getSelectedItems().isEmpty();
         editBtn.setDisable(!recordSelected);
         delBtn.setDisable(!recordSelected);
     }
@@ -186,16 +405,23 @@ public class DB_GUI_Controller implements Initializable {
     // Add New Record Action
     @FXML
     protected void addNewRecord() {
+        if (personIndex.findByEmail(email.getText()) != null) {
+            updateStatusMessage("A record with this email already exists.", "red");
+            return;
+        }
         Person p = new Person(first_name.getText(), last_name.getText(), department.getText(),
                 major.getText(), email.getText(), imageURL.getText());
-        cnUtil.insertUser(p);
-        cnUtil.retrieveId(p);
-        p.setId(cnUtil.retrieveId(p));
-        data.add(p);
+        try {
+            // Shown with a temporary id until the write-behind queue saves it
+            data.add(writeQueue.insert(p));
+        } catch (IOException e) {
+            e.printStackTrace();
+            updateStatusMessage("Error adding record.", "red");
+            return;
+        }
         clearForm();
         // Set the status message to inform the user about the success
         updateStatusMessage("Record added successfully!", "green");
-
     }
 
     // Clear Form Action
@@ -209,25 +435,56 @@ public class DB_GUI_Controller implements Initializable {
         imageURL.setText("");
     }
 
+    // This view stays cached with its loaded rows; the next login shows it again as it was
     @FXML
     protected void logOut(ActionEvent actionEvent) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("/view/login.fxml"));
-            Scene scene = new Scene(root, 900, 600);
-            scene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").getFile());
-            Stage window = (Stage) menuBar.getScene().getWindow();
-            window.setScene(scene);
-            window.show();
+            Navigator.show(menuBar, Navigator.LOGIN);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    // Catch up on changes made while logged out; the watermark is kept, so nothing is missed
+    @Override
+    public void onShown() {
+        deltaSync.start();
+    }
+
+    @Override
+    public void onHidden() {
+        deltaSync.stop();
+    }
+
     @FXML
     protected void closeApplication() {
         System.exit(0);
     }
 
+    // EXPLAIN every DAO statement and show which ones scan the whole table
+    @FXML
+    protected void checkQueryPlans() {
+        CompletableFuture<List<QueryPlanChecker.PlanCheck>> checking = asyncDb.submit(() -> {
+            try {
+                return new QueryPlanChecker().checkAll();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        runInBackground("Checking query plans...", checking, checks -> {
+            long problems = checks.stream().filter(QueryPlanChecker.PlanCheck::isProblem).count();
+            TextArea details = new TextArea(QueryPlanChecker.format(checks));
+            details.setEditable(false);
+            details.setPrefSize(700, 400);
+            Alert alert = new Alert(problems == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            alert.setTitle("Query Plans");
+            alert.setHeaderText(problems == 0 ? "All frequent queries use an index."
+                    : problems + " frequent queries scan the whole table.");
+            alert.getDialogPane().setContent(details);
+            alert.showAndWait();
+        }, "Error checking query plans.");
+    }
+
     @FXML
     protected void displayAbout() {
         try {
@@ -243,52 +500,140 @@ public class DB_GUI_Controller implements Initializable {
 
     @FXML
     protected void editRecord() {
+        if (tv.getSelectionModel().getSelectedItems().size() > 1) {
+            editSelectedRecords();
+            return;
+        }
         Person p = tv.getSelectionModel().getSelectedItem();
         int index = data.indexOf(p);
-        Person p2 = new Person(index + 1, first_name.getText(), last_name.getText(), department.getText(),
+        Person p2 = new Person(p.getId(), first_name.getText(), last_name.getText(), department.getText(),
                 major.getText(), email.getText(), imageURL.getText());
-        cnUtil.editUser(p.getId(), p2);
-        data.remove(p);
-        data.add(index, p2);
-        tv.getSelectionModel().select(index);
+        // Saved only if nobody else changed the row since it was loaded; otherwise merged with their change
+        p2.setVersion(p.getVersion());
+        try {
+            writeQueue.update(p.getId(), p2, p);
+        } catch (IOException e) {
+            e.printStackTrace();
+            updateStatusMessage("Error updating record.", "red");
+            return;
+        }
+        if (index >= 0) {
+            data.set(index, p2);
+        }
+        updateSearchResults(List.of(p2), List.of());
+        tv.getSelectionModel().select(p2);
         updateStatusMessage("Record updated successfully!", "green");
+    }
 
-
+    // Set the form's major and department on every selected row; a blank field is left unchanged.
+    // Sent as one UPDATE, and the table takes all the new rows in one list change.
+    private void editSelectedRecords() {
+        String newMajor = major.getText().isBlank() ? null : major.getText().trim();
+        String newDepartment = department.getText().isBlank() ? null : department.getText().trim();
+        if (newMajor == null && newDepartment == null) {
+            updateStatusMessage("Enter a major or department to apply to the selected records.", "red");
+            return;
+        }
+        List<Person> selected = new ArrayList<>(tv.getSelectionModel().getSelectedItems());
+        List<Integer> ids = new ArrayList<>(selected.size());
+        List<Person> updated = new ArrayList<>(selected.size());
+        for (Person p : selected) {
+            ids.add(p.getId());
+            Person copy = new Person(p.getId(), p.getFirstName(), p.getLastName(),
+                    newDepartment != null ? newDepartment : p.getDepartment(),
+                    newMajor != null ? newMajor : p.getMajor(), p.getEmail(), p.getImageURL());
+            copy.setVersion(p.getVersion());
+            updated.add(copy);
+        }
+        try {
+            writeQueue.updateMajorAndDepartment(ids, newMajor, newDepartment);
+        } catch (IOException e) {
+            e.printStackTrace();
+            updateStatusMessage("Error updating records.", "red");
+            return;
+        }
+        userLoader.applyChanges(new ChangeSet(updated, List.of(), null));
+        updateSearchResults(updated, List.of());
+        updateStatusMessage(selected.size() + " records updated successfully!", "green");
     }
 
     @FXML
     protected void deleteRecord() {
-        Person p = tv.getSelectionModel().getSelectedItem();
-        int index = data.indexOf(p);
-        cnUtil.deleteRecord(p);
-        data.remove(index);
-        tv.getSelectionModel().select(index);
+        List<Person> selected = new ArrayList<>(tv.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            return;
+        }
+        if (selected.size() > 1) {
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Delete " + selected.size() + " records?", ButtonType.OK, ButtonType.CANCEL);
+            confirm.setHeaderText(null);
+            if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+                return;
+            }
+        }
+        List<Integer> ids = new ArrayList<>(selected.size());
+        for (Person p : selected) {
+            ids.add(p.getId());
+        }
+        try {
+            writeQueue.deleteAll(ids);
+        } catch (IOException e) {
+            e.printStackTrace();
+            updateStatusMessage("Error deleting record.", "red");
+            return;
+        }
+        // Keep the selection at the same position in the (possibly filtered) table
+        int viewIndex = tv.getItems().indexOf(tv.getSelectionModel().getSelectedItem());
+        tv.getSelectionModel().clearSelection();
+        // One list change for all of them rather than a removal per row
+        userLoader.applyChanges(new ChangeSet(List.of(), ids, null));
+        updateSearchResults(List.of(), ids);
+        tv.getSelectionModel().select(Math.min(viewIndex, tv.getItems().size() - 1));
         // Inform the user about the deletion
-        updateStatusMessage("Record deleted successfully.", "green");
+        updateStatusMessage(selected.size() == 1 ? "Record deleted successfully."
+                : selected.size() + " records deleted successfully.", "green");
     }
 
     @FXML
     protected void showImage() {
-        File file = (new FileChooser()).showOpenDialog(img_view.getScene().getWindow());
-        if (file != null) {
-            img_view.setImage(new Image(file.toURI().toString()));
-
-            Task<Void> uploadTask = createUploadTask(file, progressBar);
-            progressBar.progressProperty().bind(uploadTask.progressProperty());
-
-            // Add success and failure handlers for the upload task
-            uploadTask.setOnSucceeded(e -> {
-                updateStatusMessage("Upload completed successfully!", "green");
-            });
-
-            uploadTask.setOnFailed(e -> {
-                updateStatusMessage("Upload failed: " + uploadTask.getException().getMessage(), "red");
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Images", "*.jpg", "*.jpeg", "*.png", "*.gif", "*.bmp"));
+        List<File> files = fileChooser.showOpenMultipleDialog(img_view.getScene().getWindow());
+        if (files != null && !files.isEmpty()) {
+            img_view.setImage(new Image(files.get(0).toURI().toString()));
+            List<Path> paths = new ArrayList<>(files.size());
+            for (File file : files) {
+                paths.add(file.toPath());
+            }
+            Person selected = tv.getSelectionModel().getSelectedItem();
+            queueUploads(() -> {
+                if (selected == null) {
+                    return uploadQueue.enqueueAll(paths);
+                }
+                // The first picture becomes the selected record's; the rest are only uploaded
+                List<UploadQueue.UploadJob> jobs = new ArrayList<>(paths.size());
+                jobs.add(uploadQueue.enqueueForPerson(paths.get(0), selected.getId()));
+                jobs.addAll(uploadQueue.enqueueAll(paths.subList(1, paths.size())));
+                return jobs;
+            }, jobs -> {
+                if (selected != null) {
+                    trackAvatarUpload(jobs.get(0), selected);
+                }
             });
-
-            new Thread(uploadTask).start();
         }
     }
 
+    // Queue every image in a directory for upload
+    @FXML
+    protected void uploadFolder() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Upload Images From Folder");
+        File dir = directoryChooser.showDialog(menuBar.getScene().getWindow());
+        if (dir != null) {
+            queueUploads(() -> uploadQueue.enqueueDirectory(dir.toPath()), jobs -> { });
+        }
+    }
 
     @FXML
     protected void addRecord() {
@@ -298,6 +643,9 @@ public class DB_GUI_Controller implements Initializable {
     @FXML
     protected void selectedItemTV(MouseEvent mouseEvent) {
         Person p = tv.getSelectionModel().getSelectedItem();
+        if (p == null) {
+            return;
+        }
         first_name.setText(p.getFirstName());
         last_name.setText(p.getLastName());
         department.setText(p.getDepartment());
@@ -361,53 +709,50 @@ public class DB_GUI_Controller implements Initializable {
 
     @FXML
     public void generateReport(ActionEvent actionEvent) {
-        // Count the number of students by major
-        Map<String, Long> majorCounts = data.stream()
-                .collect(Collectors.groupingBy(Person::getMajor, Collectors.counting()));
-
-        // Generate the PDF
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-
-            // Create a content stream
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-
-            // Write to the PDF
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-            contentStream.beginText();
-            contentStream.setLeading(14.5f);
-            contentStream.newLineAtOffset(50, 750);
-
-            contentStream.showText("Report: Number of Students by Major");
-            contentStream.newLine();
-            contentStream.newLine();
-
-            // Add the data
-            contentStream.setFont(PDType1Font.HELVETICA, 12);
-            for (Map.Entry<String, Long> entry : majorCounts.entrySet()) {
-                contentStream.showText(entry.getKey() + ": " + entry.getValue() + " students");
-                contentStream.newLine();
-            }
-
-            contentStream.endText();
-            contentStream.close();
+        ChoiceDialog<ReportGenerator.ReportType> dialog = new ChoiceDialog<>(ReportGenerator.ReportType.BY_MAJOR,
+                ReportGenerator.ReportType.values());
+        dialog.setTitle("Generate Report");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Report:");
+        Optional<ReportGenerator.ReportType> choice = dialog.showAndWait();
+        if (choice.isEmpty()) {
+            return;
+        }
+        ReportGenerator.ReportType type = choice.get();
 
-            // Save the PDF to a file
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Save PDF Report");
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
-            File file = fileChooser.showSaveDialog(menuBar.getScene().getWindow());
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save PDF Report");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        File file = fileChooser.showSaveDialog(menuBar.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
 
-            if (file != null) {
-                document.save(file);
-                statusBar.setText("Report saved successfully to: " + file.getAbsolutePath());
+        // With every row loaded the report reads a snapshot of them. Otherwise summaries come from
+        // GROUP BY queries and the roster pages through the database.
+        List<Person> snapshot = userLoader.isFullyLoaded() ? new ArrayList<>(data) : null;
+        Task<Long> reportTask = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                ReportGenerator generator = new ReportGenerator();
+                generator.setCancellationCheck(this::isCancelled);
+                generator.setProgressListener(this::updateProgress);
+                if (snapshot != null) {
+                    return generator.generate(type, snapshot::forEach, snapshot.size(), file.toPath());
+                }
+                if (type == ReportGenerator.ReportType.BY_MAJOR) {
+                    return generator.generateSummary(type, cnUtil.countByMajor(), file.toPath());
+                }
+                if (type == ReportGenerator.ReportType.BY_DEPARTMENT) {
+                    return generator.generateSummary(type, cnUtil.countByDepartment(), file.toPath());
+                }
+                return generator.generate(type, action -> cnUtil.forEachUser(PAGE_SIZE * 5, action),
+                        cnUtil.countUsers(), file.toPath());
             }
-
-        } catch (IOException e) {
-            statusBar.setText("Error generating the report.");
-            e.printStackTrace();
-        }
+        };
+        runInBackground("Generating report...", reportTask,
+                rows -> statusBar.setText("Report saved successfully to: " + file.getAbsolutePath()),
+                "Error generating the report.");
     }
 
     private static enum Major {Business, CSC, CPIS}
@@ -432,41 +777,35 @@ public class DB_GUI_Controller implements Initializable {
         File file = fileChooser.showOpenDialog(menuBar.getScene().getWindow());
 
         if (file != null) {
-            try {
-                ObservableList<Person> importedData = FXCollections.observableArrayList();
-                List<String> lines = Files.readAllLines(file.toPath());
-
-                for (String line : lines) {
-                    String[] values = line.split(","); // Assuming CSV fields are comma-separated
-
-                    // Validate each row in the CSV file
-                    if (values.length != 6 || Arrays.stream(values).anyMatch(String::isBlank)) {
-                        throw new IllegalArgumentException("Invalid CSV format in row: " + line);
-                    }
-
-                    // Create a Person object from valid data
-                    Person person = new Person(values[0], values[1], values[2], values[3], values[4], values[5]);
-                    importedData.add(person);
+            Task<CsvImporter.ImportResult> importTask = new Task<>() {
+                @Override
+                protected CsvImporter.ImportResult call() throws Exception {
+                    // Stream the file into the database in batches inside one transaction
+                    CsvImporter importer = new CsvImporter();
+                    importer.setCancellationCheck(this::isCancelled);
+                    importer.setProgressListener((bytesRead, totalBytes, inserted, rejected, rowsPerSecond) -> {
+                        updateProgress(bytesRead, totalBytes);
+                        updateMessage(String.format("Imported %d rows (%d rejected), %.0f rows/s",
+                                inserted, rejected, rowsPerSecond));
+                    });
+                    return importer.importFile(file.toPath());
                 }
-
-                // Add imported data to table and database
-                for (Person person : importedData) {
-                    cnUtil.insertUser(person);
-                    cnUtil.retrieveId(person);
-                    person.setId(cnUtil.retrieveId(person));
+            };
+            importTask.messageProperty().addListener((obs, oldMessage, newMessage) -> statusBar.setText(newMessage));
+            runInBackground("Importing CSV file...", importTask, result -> {
+                for (CsvImporter.Reject reject : result.getRejects()) {
+                    MyLogger.makeLog("CSV import rejected " + reject + " -> " + reject.getContent());
                 }
-                data.addAll(importedData);
-                tv.setItems(data);
-
-                statusBar.setText("CSV file imported successfully.");
-            } catch (IllegalArgumentException e) {
-                statusBar.setText("Error importing CSV: " + e.getMessage());
-            } catch (Exception e) {
-                statusBar.setText("Error importing CSV file.");
-                e.printStackTrace();
-            }
+                // New rows have the highest ids, so the keyset loader picks them up as the next page
+                userLoader.loadMore();
+                refreshDashboard();
+                statusBar.setText(String.format("CSV file imported: %d rows added, %d rejected in %.1f s (%.0f rows/s).",
+                        result.getInsertedCount(), result.getRejects().size(),
+                        result.getElapsedMillis() / 1000.0, result.getRowsPerSecond()));
+            }, "Error importing CSV file.");
         }
     }
+
     @FXML
     protected void exportCsv(ActionEvent actionEvent) {
         // Open a FileChooser to select the save location
@@ -476,66 +815,406 @@ public class DB_GUI_Controller implements Initializable {
         File file = fileChooser.showSaveDialog(menuBar.getScene().getWindow());
 
         if (file != null) {
-            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
-                // Write the CSV header (column names)
-                writer.write("First Name,Last Name,Department,Major,Email,Image URL\n");
-
-                // Iterate over the data list (ObservableList<Person>) and write each person's data
-                for (Person person : data) {
-                    writer.write(String.join(",",
-                            person.getFirstName(),
-                            person.getLastName(),
-                            person.getDepartment(),
-                            person.getMajor(),
-                            person.getEmail(),
-                            person.getImageURL())
-                    );
-                    writer.newLine();
+            Task<Long> exportTask = new Task<>() {
+                @Override
+                protected Long call() throws Exception {
+                    // Stream rows from the database straight to the file
+                    CsvExporter exporter = new CsvExporter(false);
+                    exporter.setCancellationCheck(this::isCancelled);
+                    exporter.setProgressListener(this::updateProgress);
+                    return exporter.exportToFile(file.toPath());
                 }
+            };
+            runInBackground("Exporting CSV file...", exportTask,
+                    rows -> updateStatusMessage("CSV file exported successfully (" + rows + " rows).", "green"),
+                    "Error exporting CSV file.");
+        }
+    }
 
-                // Update status message
-                updateStatusMessage("CSV file exported successfully.", "green");
+    // Run a database call off the FX thread; the callback runs back on the FX thread.
+    private <T> void runInBackground(String busyMessage, CompletableFuture<T> future,
+                                     Consumer<T> onSuccess, String errorMessage) {
+        startOperation(busyMessage, future);
+        progressBar.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        future.whenComplete((result, ex) -> Platform.runLater(() -> {
+            finishOperation(future);
+            if (future.isCancelled()) {
+                statusBar.setText("Operation cancelled.");
+            } else if (ex != null) {
+                updateStatusMessage(errorMessage, "red");
+                ex.printStackTrace();
+            } else {
+                onSuccess.accept(result);
+            }
+        }));
+    }
 
-            } catch (IOException e) {
-                // Handle any errors during file writing
-                updateStatusMessage("Error exporting CSV file.", "red");
-                e.printStackTrace();
+    // Run a longer job on the DAO executor with its progress shown in the progress bar.
+    private <T> void runInBackground(String busyMessage, Task<T> task, Consumer<T> onSuccess, String errorMessage) {
+        startOperation(busyMessage, task);
+        progressBar.progressProperty().bind(task.progressProperty());
+        EventHandler<WorkerStateEvent> onCancelled = task.getOnCancelled();
+        task.setOnSucceeded(e -> {
+            finishOperation(task);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            finishOperation(task);
+            Throwable ex = task.getException();
+            // Validation errors carry a message meant for the user
+            updateStatusMessage(ex instanceof IllegalArgumentException
+                    ? errorMessage + " " + ex.getMessage() : errorMessage, "red");
+            ex.printStackTrace();
+        });
+        task.setOnCancelled(e -> {
+            finishOperation(task);
+            if (onCancelled != null) {
+                onCancelled.handle(e);
+            }
+            statusBar.setText("Operation cancelled.");
+        });
+        AsyncDbConnectivity.execute(task);
+    }
+
+    private void startOperation(String busyMessage, Future<?> operation) {
+        pendingOperations.add(operation);
+        progressBar.progressProperty().unbind();
+        statusBar.setText(busyMessage);
+        cancelBtn.setDisable(false);
+    }
+
+    private void finishOperation(Future<?> operation) {
+        pendingOperations.remove(operation);
+        if (pendingOperations.isEmpty()) {
+            progressBar.progressProperty().unbind();
+            progressBar.setProgress(0);
+            cancelBtn.setDisable(true);
+        }
+    }
+
+    @FXML
+    protected void cancelOperations() {
+        for (Future<?> operation : new ArrayList<>(pendingOperations)) {
+            AsyncDbConnectivity.cancel(operation);
+        }
+    }
+
+    private void setupAvatars() throws IOException {
+        synchronized (DB_GUI_Controller.class) {
+            if (imageLoader == null) {
+                imageLoader = new ImageLoader(IMAGE_CACHE_DIR, IMAGE_CACHE_ENTRIES, 4);
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        imageLoader.trimDiskCache(IMAGE_CACHE_MAX_BYTES);
+                    } catch (IOException e) {
+                        MyLogger.makeLog("Could not trim image cache: " + e.getMessage());
+                    }
+                }, AsyncDbConnectivity.getExecutor());
+            }
+        }
+        tv_avatar.setCellValueFactory(new PropertyValueFactory<>("imageURL"));
+        tv_avatar.setCellFactory(column -> new AvatarTableCell(imageLoader, AVATAR_SIZE, uploadedThumbnails));
+        tv_avatar.setSortable(false);
+    }
+
+    // Show the selected person's picture, dropping the load for the previous selection
+    private void showDetailImage(Person person) {
+        if (detailImageLoad != null) {
+            detailImageLoad.cancel(false);
+            detailImageLoad = null;
+        }
+        String url = person == null ? null : person.getImageURL();
+        if (url == null || url.isBlank()) {
+            img_view.setImage(null);
+            return;
+        }
+        CompletableFuture<Image> load = imageLoader.load(url, DETAIL_IMAGE_SIZE);
+        detailImageLoad = load;
+        load.whenComplete((image, ex) -> Platform.runLater(() -> {
+            if (detailImageLoad == load) {
+                detailImageLoad = null;
+                img_view.setImage(ex == null ? image : null);
             }
+        }));
+    }
+
+    // Reload the dashboard counters; cheap when nothing was written since the last refresh.
+    // With every row loaded they are read from the local index instead of the database.
+    private void refreshDashboard() {
+        if (userLoader.isFullyLoaded()) {
+            showDashboard(new DashboardCounts(personIndex.size(), personIndex.getMajorCounts(),
+                    personIndex.getDepartmentCounts()));
+            return;
         }
+        asyncDb.submit(() -> new DashboardCounts(cnUtil.countUsers(), cnUtil.countByMajor(), cnUtil.countByDepartment()))
+                .whenComplete((counts, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        dashTotal.setText("Students: ?");
+                        return;
+                    }
+                    showDashboard(counts);
+                }));
     }
 
+    private void showDashboard(DashboardCounts counts) {
+        dashTotal.setText("Students: " + counts.total());
+        fillCounts(dashMajors, counts.byMajor());
+        fillCounts(dashDepartments, counts.byDepartment());
+    }
 
-    private Task<Void> createUploadTask(File file, ProgressBar progressBar) {
-        return new Task<>() {
+    // Largest groups first, the rest summed up in one line
+    private static void fillCounts(VBox box, Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        List<Label> labels = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < DASHBOARD_ROWS; i++) {
+            String name = entries.get(i).getKey().isBlank() ? "(none)" : entries.get(i).getKey();
+            labels.add(new Label(name + ": " + entries.get(i).getValue()));
+        }
+        if (entries.size() > DASHBOARD_ROWS) {
+            long rest = 0;
+            for (Map.Entry<String, Long> entry : entries.subList(DASHBOARD_ROWS, entries.size())) {
+                rest += entry.getValue();
+            }
+            labels.add(new Label("Others: " + rest));
+        }
+        box.getChildren().setAll(labels);
+    }
+
+    private record DashboardCounts(long total, Map<String, Long> byMajor, Map<String, Long> byDepartment) {
+    }
+
+    static synchronized StorageUploader storageUploader() {
+        if (storageUploader == null) {
+            storageUploader = new StorageUploader();
+        }
+        return storageUploader;
+    }
+
+    // Create the shared upload queue on first use, resume journaled uploads, and show its
+    // throughput and queue depth in the status bar while this view is open.
+    private void setupUploadQueue() {
+        synchronized (DB_GUI_Controller.class) {
+            if (uploadQueue == null) {
+                uploadQueue = new UploadQueue(storageUploader(), UPLOAD_JOURNAL, UPLOAD_WORKERS, UPLOAD_MAX_ATTEMPTS, 1000);
+                uploadQueue.setPreprocessor(new ImagePreprocessor(THUMBNAIL_SIZE));
+                queueUploads(() -> {
+                    int restored = uploadQueue.restore();
+                    if (restored > 0) {
+                        MyLogger.makeLog("Resuming " + restored + " uploads from " + UPLOAD_JOURNAL);
+                    }
+                    return List.of();
+                }, jobs -> { });
+            }
+        }
+        uploadQueue.setListener(new UploadQueue.Listener() {
             @Override
-            protected Void call() throws Exception {
-                BlobClient blobClient = store.getContainerClient().getBlobClient(file.getName());
-                long fileSize = Files.size(file.toPath());
-                long uploadedBytes = 0;
+            public void onStats(UploadQueue.Stats stats) {
+                Platform.runLater(() -> {
+                    statusBar.setText(stats.queueDepth() == 0
+                            ? "Uploads finished: " + stats.completed() + " done, " + stats.failed() + " failed."
+                            : stats.describe());
+                    // The progress bar belongs to database operations while any are running
+                    if (pendingOperations.isEmpty()) {
+                        progressBar.setProgress(stats.queueDepth() == 0 ? 0 : stats.progress());
+                    }
+                });
+            }
 
-                try (FileInputStream fileInputStream = new FileInputStream(file);
-                     OutputStream blobOutputStream = blobClient.getBlockBlobClient().getBlobOutputStream()) {
+            @Override
+            public void onJobFinished(UploadQueue.UploadJob job, Exception error) {
+                if (error != null) {
+                    error.printStackTrace();
+                } else {
+                    String thumbnailUrl = job.getThumbnailUrl();
+                    uploadedThumbnails.put(job.getUrl(), thumbnailUrl != null ? thumbnailUrl : job.getUrl());
+                }
+                Platform.runLater(() -> {
+                    Person person = avatarUploads.remove(job);
+                    if (error != null) {
+                        updateStatusMessage("Upload of " + job.getFile().getFileName() + " failed.", "red");
+                    } else if (person != null) {
+                        applyImageUrl(person, job.getUrl());
+                    } else if (job.getPersonId() != null) {
+                        // Restored from the journal after a restart; the row may not be loaded
+                        applyImageUrl(job.getPersonId(), job.getUrl());
+                    }
+                });
+            }
+        });
+    }
 
-                    byte[] buffer = new byte[1024 * 1024]; // 1 MB buffer size
-                    int bytesRead;
+    private void trackAvatarUpload(UploadQueue.UploadJob job, Person person) {
+        // A job that already finished (e.g. a deduplicated image) is handled by onJobFinished
+        // through its person id; tracking it would leave the entry behind
+        UploadQueue.State state = job.getState();
+        if (state != UploadQueue.State.DONE && state != UploadQueue.State.FAILED) {
+            avatarUploads.put(job, person);
+        }
+    }
 
-                    while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                        blobOutputStream.write(buffer, 0, bytesRead);
-                        uploadedBytes += bytesRead;
+    private void applyImageUrl(int id, String url) {
+        int index = indexOfId(id);
+        if (index >= 0) {
+            applyImageUrl(data.get(index), url);
+            return;
+        }
+        asyncDb.submit(() -> cnUtil.findById(id)).thenAccept(person -> Platform.runLater(() -> {
+            if (person != null) {
+                applyImageUrl(person, url);
+            }
+        }));
+    }
 
-                        // Calculate and update progress as a percentage
-                        int progress = (int) ((double) uploadedBytes / fileSize * 100);
-                        updateProgress(progress, 100); // Update progress
+    // Point the record at its uploaded image and save it
+    private void applyImageUrl(Person person, String url) {
+        Person updated = new Person(person.getId(), person.getFirstName(), person.getLastName(),
+                person.getDepartment(), person.getMajor(), person.getEmail(), url);
+        updated.setVersion(person.getVersion());
+        try {
+            writeQueue.update(person.getId(), updated, person);
+        } catch (IOException e) {
+            e.printStackTrace();
+            updateStatusMessage("Error saving profile picture.", "red");
+            return;
+        }
+        int index = indexOfId(person.getId());
+        if (index >= 0) {
+            boolean selected = data.get(index) == tv.getSelectionModel().getSelectedItem();
+            data.set(index, updated);
+            if (selected) {
+                tv.getSelectionModel().select(updated);
+                imageURL.setText(url);
+            }
+        }
+        updateStatusMessage("Profile picture updated.", "green");
+    }
+
+    private int indexOfId(int id) {
+        for (int i = 0; i < data.size(); i++) {
+            if (Objects.equals(data.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Create the shared write-behind queue on first use and replay journaled writes. Saved inserts
+    // get their real id, rejected writes are reloaded from the database, and the dashboard is
+    // refreshed once a flush reaches the server.
+    private void setupWriteQueue() {
+        synchronized (DB_GUI_Controller.class) {
+            if (writeQueue == null) {
+                writeQueue = new WriteBehindQueue(cnUtil, WRITE_JOURNAL, WRITE_FLUSH_INTERVAL_MS);
+                try {
+                    int restored = writeQueue.restore();
+                    if (restored > 0) {
+                        MyLogger.makeLog("Replaying " + restored + " writes from " + WRITE_JOURNAL);
                     }
                 } catch (IOException e) {
-                    // Handle IO errors (e.g., file read errors, network issues)
-                    updateMessage("Error uploading file: " + e.getMessage());
-                    updateProgress(0, 100);  // Reset progress on failure
+                    MyLogger.makeLog("Could not read write journal: " + e.getMessage());
                 }
+                writeQueue.start();
+            }
+        }
+        writeQueue.setListener(new WriteBehindQueue.Listener() {
+            @Override
+            public void onInserted(int tempId, Person saved) {
+                Platform.runLater(() -> {
+                    int index = indexOfId(tempId);
+                    if (index >= 0) {
+                        Person shown = data.get(index);
+                        Person updated = new Person(saved.getId(), shown.getFirstName(), shown.getLastName(),
+                                shown.getDepartment(), shown.getMajor(), shown.getEmail(), shown.getImageURL());
+                        updated.setVersion(saved.getVersion());
+                        boolean selected = shown == tv.getSelectionModel().getSelectedItem();
+                        data.set(index, updated);
+                        if (selected) {
+                            tv.getSelectionModel().select(updated);
+                        }
+                    }
+                });
+            }
 
-                return null;
+            // Show the stored row: its new version, and any columns merged in from other clients
+            @Override
+            public void onUpdated(Person saved) {
+                Platform.runLater(() -> {
+                    int index = indexOfId(saved.getId());
+                    if (index >= 0 && !writeQueue.hasPending(saved.getId())) {
+                        boolean selected = data.get(index) == tv.getSelectionModel().getSelectedItem();
+                        data.set(index, saved);
+                        if (selected) {
+                            tv.getSelectionModel().select(saved);
+                        }
+                    }
+                });
             }
-        };
+
+            @Override
+            public void onConflict(WriteBehindQueue.PendingWrite write, Exception error) {
+                int id = write.getId();
+                // An edit that clashed with another client's carries their row; anything else is looked up
+                CompletableFuture<Person> reload = error instanceof UpdateConflictException
+                        ? CompletableFuture.completedFuture(((UpdateConflictException) error).getCurrent())
+                        : id < 0 ? CompletableFuture.completedFuture(null) : asyncDb.submit(() -> cnUtil.findById(id));
+                reload.thenAccept(current -> Platform.runLater(() -> {
+                    int index = indexOfId(id);
+                    if (current == null && index >= 0) {
+                        data.remove(index);
+                    } else if (current != null && index >= 0) {
+                        data.set(index, current);
+                    } else if (current != null) {
+                        data.add(current);
+                    }
+                    updateStatusMessage(write.getOperation() == WriteBehindQueue.Operation.INSERT
+                            ? "Record could not be saved: " + error.getMessage()
+                            : "Record was changed by someone else and has been reloaded.", "red");
+                }));
+            }
+
+            @Override
+            public void onFlushed(int applied, int pending) {
+                if (applied > 0) {
+                    Platform.runLater(() -> refreshDashboard());
+                }
+            }
+        });
+    }
+
+    // Server rows for records with unsaved local writes are older than what the table shows;
+    // so is a just-saved insert that is still listed under its temporary id.
+    private ChangeSet withoutPendingWrites(ChangeSet changes) {
+        List<Person> upserts = new ArrayList<>(changes.getUpserts().size());
+        for (Person person : changes.getUpserts()) {
+            Person shown = personIndex.findByEmail(person.getEmail());
+            boolean unsavedInsert = shown != null && shown.getId() != null && shown.getId() < 0;
+            if (!writeQueue.hasPending(person.getId()) && !unsavedInsert) {
+                upserts.add(person);
+            }
+        }
+        return upserts.size() == changes.getUpserts().size() ? changes
+                : new ChangeSet(upserts, changes.getDeletedIds(), changes.getWatermark());
+    }
+
+    // Enqueueing reads file sizes and rewrites the journal, so keep it off the FX thread;
+    // onQueued gets the new jobs on the FX thread.
+    private void queueUploads(Callable<List<UploadQueue.UploadJob>> enqueue,
+                              Consumer<List<UploadQueue.UploadJob>> onQueued) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                List<UploadQueue.UploadJob> jobs = enqueue.call();
+                if (!jobs.isEmpty()) {
+                    Platform.runLater(() -> {
+                        statusBar.setText("Queued " + jobs.size() + " uploads.");
+                        onQueued.accept(jobs);
+                    });
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> updateStatusMessage("Could not queue uploads.", "red"));
+            }
+        }, AsyncDbConnectivity.getExecutor());
     }
 
 }
\ No newline at end of file
@@ -3,22 +3,18 @@ package viewmodel;
 import javafx.animation.FadeTransition;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Side;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.*;
-import javafx.stage.Stage;
 import javafx.util.Duration;
 
 
 
-public class LoginController {
+public class LoginController implements Navigator.Screen {
     @FXML
     private TextField usernameTextField;
     @FXML
@@ -28,26 +24,34 @@ public class LoginController {
     @FXML
     private GridPane rootpane;
     public void initialize() {
-        rootpane.setBackground(new Background(
-                        createImage("https://edencoding.com/wp-content/uploads/2021/03/layer_06_1920x1080.png"),
-                        null,
-                        null,
-                        null,
-                        null,
-                        null
-                )
-        );
-
+        // Bundled and usually already decoded by the startup preload
+        Image background = StartupOrchestrator.loginBackground();
+        if (background != null) {
+            rootpane.setBackground(new Background(createImage(background), null, null, null, null, null));
+        }
 
+        // The screen may be built off the FX thread during startup; fade in when it is first shown
         rootpane.setOpacity(0);
-        FadeTransition fadeOut2 = new FadeTransition(Duration.seconds(10), rootpane);
-        fadeOut2.setFromValue(0);
-        fadeOut2.setToValue(1);
-        fadeOut2.play();
     }
-    private static BackgroundImage createImage(String url) {
+
+    @Override
+    public void onShown() {
+        if (rootpane.getOpacity() == 0) {
+            FadeTransition fadeOut2 = new FadeTransition(Duration.seconds(10), rootpane);
+            fadeOut2.setFromValue(0);
+            fadeOut2.setToValue(1);
+            fadeOut2.play();
+        }
+    }
+
+    // The screen is kept for the next logout; don't leave the password in it
+    @Override
+    public void onHidden() {
+        passwordField.clear();
+    }
+    private static BackgroundImage createImage(Image image) {
         return new BackgroundImage(
-                new Image(url),
+                image,
                 BackgroundRepeat.REPEAT, BackgroundRepeat.NO_REPEAT,
                 new BackgroundPosition(Side.LEFT, 0, true, Side.BOTTOM, 0, true),
                 new BackgroundSize(BackgroundSize.AUTO, BackgroundSize.AUTO, true, true, false, true));
@@ -56,12 +60,7 @@ public class LoginController {
     public void login(ActionEvent actionEvent) {
         if (validateInputs()) {
             try {
-                Parent root = FXMLLoader.load(getClass().getResource("/view/db_interface_gui.fxml"));
-                Scene scene = new Scene(root, 900, 600);
-                scene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").toExternalForm());
-                Stage window = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-                window.setScene(scene);
-                window.show();
+                Navigator.show((Node) actionEvent.getSource(), Navigator.MAIN);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -70,12 +69,7 @@ public class LoginController {
 
     public void signUp(ActionEvent actionEvent) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("/view/signUp.fxml"));
-            Scene scene = new Scene(root, 900, 600);
-            scene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").toExternalForm());
-            Stage window = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            window.setScene(scene);
-            window.show();
+            Navigator.show((Node) actionEvent.getSource(), Navigator.SIGN_UP);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -3,6 +3,7 @@ package viewmodel;
 import dao.DbConnectivityClass;
 import javafx.animation.FadeTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -10,14 +11,17 @@ import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.util.concurrent.CompletableFuture;
+
 public class MainApplication extends Application {
 
     private static Scene scene;
     public static DbConnectivityClass cnUtil;
     private Stage primaryStage;
+    private final StartupOrchestrator startup = new StartupOrchestrator();
 
     public static void main(String[] args) {
-        cnUtil = new DbConnectivityClass();
+        cnUtil = DbConnectivityClass.cnUtil;
         launch(args);
 
     }
@@ -31,37 +35,41 @@ public class MainApplication extends Application {
         showScene1();
     }
 
+    @Override
+    public void stop() {
+        // Release pooled database connections on exit
+        DbConnectivityClass.shutdownPool();
+    }
+
     private void showScene1() {
         try {
             Parent root = FXMLLoader.load(getClass().getResource("/view/splashscreen.fxml"));
-            Scene scene = new Scene(root, 900, 600);
+            Scene scene = new Scene(root, Navigator.WIDTH, Navigator.HEIGHT);
             scene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").toExternalForm());
             primaryStage.setScene(scene);
             primaryStage.show();
-            changeScene();
+            changeScene(startup.start());
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    public void changeScene() {
-        try {
-            Parent newRoot = FXMLLoader.load(getClass().getResource("/view/login.fxml").toURI().toURL());
-            Scene currentScene = primaryStage.getScene();
-            Parent currentRoot = currentScene.getRoot();
-            currentScene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").toExternalForm());
-            FadeTransition fadeOut = new FadeTransition(Duration.seconds(3), currentRoot);
-            fadeOut.setFromValue(1);
-            fadeOut.setToValue(0);
-            fadeOut.setOnFinished(e -> {
-                Scene newScene = new Scene(newRoot, 900, 600);
-                primaryStage.setScene(newScene);
-                primaryStage.show();
-            });
-            fadeOut.play();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    // Fade out the splash while the login screen is prepared in the background, then show it
+    public void changeScene(CompletableFuture<Parent> loginRoot) {
+        Parent currentRoot = primaryStage.getScene().getRoot();
+        FadeTransition fadeOut = new FadeTransition(Duration.seconds(3), currentRoot);
+        fadeOut.setFromValue(1);
+        fadeOut.setToValue(0);
+        fadeOut.setOnFinished(e -> loginRoot.whenComplete((newRoot, error) -> Platform.runLater(() -> {
+            try {
+                // Loads it here if the preload failed
+                Navigator.show(primaryStage, Navigator.LOGIN);
+                startup.ready("login");
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        })));
+        fadeOut.play();
     }
 
 
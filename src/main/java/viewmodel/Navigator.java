@@ -0,0 +1,94 @@
+package viewmodel;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import service.MyLogger;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Switches the window between the login, sign-up and main screens. Each FXML file is loaded once
+// and its scene graph and controller are kept, so going back to a screen finds it as it was left
+// (the main screen keeps its loaded rows across logout and login). The window keeps one Scene,
+// and its theme, and only its root is swapped.
+public class Navigator {
+
+    public static final String LOGIN = "/view/login.fxml";
+    public static final String SIGN_UP = "/view/signUp.fxml";
+    public static final String MAIN = "/view/db_interface_gui.fxml";
+
+    static final double WIDTH = 900;
+    static final double HEIGHT = 600;
+
+    // Controllers that want to know when their screen is shown or replaced
+    public interface Screen {
+        // Called each time the screen becomes the window's root, including the first
+        default void onShown() {
+        }
+
+        // Called when another screen replaces this one
+        default void onHidden() {
+        }
+    }
+
+    private record Loaded(Parent root, Object controller) {
+    }
+
+    private static final Map<String, Loaded> screens = new ConcurrentHashMap<>();
+
+    private Navigator() {
+    }
+
+    // Load the screen into the cache without showing it; safe to call off the FX thread.
+    public static Parent preload(String fxml) throws IOException {
+        return load(fxml).root;
+    }
+
+    // Show the screen in the window that contains source
+    public static void show(Node source, String fxml) throws IOException {
+        show((Stage) source.getScene().getWindow(), fxml);
+    }
+
+    public static void show(Stage stage, String fxml) throws IOException {
+        long start = System.nanoTime();
+        Loaded next = load(fxml);
+        Scene scene = stage.getScene();
+        if (scene == null) {
+            stage.setScene(new Scene(next.root, WIDTH, HEIGHT));
+        } else if (scene.getRoot() != next.root) {
+            Parent previous = scene.getRoot();
+            scene.setRoot(next.root);
+            for (Loaded loaded : screens.values()) {
+                if (loaded.root == previous && loaded.controller instanceof Screen screen) {
+                    screen.onHidden();
+                }
+            }
+        }
+        if (next.controller instanceof Screen screen) {
+            screen.onShown();
+        }
+        stage.show();
+        MyLogger.makeLog("Switched to " + fxml + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static Loaded load(String fxml) throws IOException {
+        Loaded loaded = screens.get(fxml);
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (screens) {
+            loaded = screens.get(fxml);
+            if (loaded == null) {
+                FXMLLoader loader = new FXMLLoader(Navigator.class.getResource(fxml));
+                Parent root = loader.load();
+                loaded = new Loaded(root, loader.getController());
+                screens.put(fxml, loaded);
+            }
+            return loaded;
+        }
+    }
+}
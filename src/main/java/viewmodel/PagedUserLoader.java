@@ -0,0 +1,369 @@
+package viewmodel;
+
+import dao.AsyncDbConnectivity;
+import dao.ChangeSet;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+
+// Keeps a bounded window of users in the table's list. Pages are fetched by id (keyset)
+// as the TableView scrolls, and rows far away from the viewport are dropped again.
+// Dropping only happens while the table shows the window unsorted and unfiltered: otherwise the
+// rows at the window's ends can be anywhere in the view, so the window grows until it is cleared.
+// Fetches run on the DAO executor; each page is applied to the list in one FX-thread batch.
+public class PagedUserLoader {
+
+    // Start fetching when the scroll bar is within this fraction of either end
+    private static final double PREFETCH_THRESHOLD = 0.1;
+
+    private final AsyncDbConnectivity asyncDb;
+    private final ObservableList<Person> window;
+    private final int pageSize;
+    private final int maxRows;
+
+    private TableView<Person> table;
+    // Whether the table shows the window as it is, in id order
+    private BooleanSupplier inWindowOrder = () -> true;
+    // Ids with writes not saved yet, which trimming must not drop
+    private IntPredicate pendingWrites = id -> false;
+    // Keyset cursors: ids of the first and last rows that came from the database
+    private int firstLoadedId = 0;
+    private int lastLoadedId = 0;
+    private boolean atStart = true;
+    private boolean atEnd = false;
+    private boolean loading = false;
+
+    public PagedUserLoader(AsyncDbConnectivity asyncDb, ObservableList<Person> window, int pageSize, int maxRows) {
+        if (maxRows < pageSize * 2) {
+            throw new IllegalArgumentException("maxRows must hold at least two pages");
+        }
+        this.asyncDb = asyncDb;
+        this.window = window;
+        this.pageSize = pageSize;
+        this.maxRows = maxRows;
+    }
+
+    public CompletableFuture<List<Person>> loadFirstPage() {
+        loading = true;
+        CompletableFuture<List<Person>> future = asyncDb.getPageAfter(0, pageSize);
+        future.whenComplete((page, ex) -> Platform.runLater(() -> {
+            loading = false;
+            if (ex != null || future.isCancelled()) {
+                return;
+            }
+            // Unsaved local inserts (negative temporary ids) are not in the database yet
+            List<Person> rows = new ArrayList<>(page);
+            for (Person person : window) {
+                if (person.getId() != null && person.getId() < 0) {
+                    rows.add(person);
+                }
+            }
+            window.setAll(rows);
+            atStart = true;
+            atEnd = page.size() < pageSize;
+            firstLoadedId = page.isEmpty() ? 0 : page.get(0).getId();
+            lastLoadedId = page.isEmpty() ? 0 : page.get(page.size() - 1).getId();
+        }));
+        return future;
+    }
+
+    // Append the next page and drop rows from the top if the window is full.
+    public boolean loadNext() {
+        if (atEnd || loading) {
+            return false;
+        }
+        loading = true;
+        asyncDb.getPageAfter(lastLoadedId, pageSize).whenComplete((page, ex) -> Platform.runLater(() -> {
+            loading = false;
+            if (ex != null) {
+                return;
+            }
+            appendPage(page);
+        }));
+        return true;
+    }
+
+    // Look for rows added after the last page was read (e.g. by an import) and append them.
+    public boolean loadMore() {
+        atEnd = false;
+        return loadNext();
+    }
+
+    // Prepend the previous page and drop rows from the bottom if the window is full.
+    public boolean loadPrevious() {
+        if (atStart || loading) {
+            return false;
+        }
+        loading = true;
+        asyncDb.getPageBefore(firstLoadedId, pageSize).whenComplete((page, ex) -> Platform.runLater(() -> {
+            loading = false;
+            if (ex != null) {
+                return;
+            }
+            prependPage(page);
+        }));
+        return true;
+    }
+
+    void appendPage(List<Person> page) {
+        atEnd = page.size() < pageSize;
+        if (page.isEmpty()) {
+            return;
+        }
+        // Rows added locally after the last page are already in the window
+        Set<Integer> present = new HashSet<>();
+        for (Person person : window) {
+            if (person.getId() != null && person.getId() > lastLoadedId) {
+                present.add(person.getId());
+            }
+        }
+        lastLoadedId = page.get(page.size() - 1).getId();
+        if (!present.isEmpty()) {
+            page = new ArrayList<>(page);
+            page.removeIf(person -> present.contains(person.getId()));
+        }
+        window.addAll(page);
+
+        if (!inWindowOrder.getAsBoolean()) {
+            return;
+        }
+        int overflow = window.size() - maxRows;
+        if (overflow > 0) {
+            int firstVisible = firstVisibleIndex();
+            int dropped = dropRows(true, overflow, window.size() - page.size());
+            firstLoadedId = savedIdBound(true, firstLoadedId);
+            atStart = false;
+            scrollTo(firstVisible - dropped);
+        }
+    }
+
+    void prependPage(List<Person> page) {
+        atStart = page.size() < pageSize;
+        if (page.isEmpty()) {
+            return;
+        }
+        boolean trim = inWindowOrder.getAsBoolean();
+        int firstVisible = firstVisibleIndex();
+        window.addAll(0, page);
+        firstLoadedId = page.get(0).getId();
+        if (!trim) {
+            return;
+        }
+        int overflow = window.size() - maxRows;
+        if (overflow > 0) {
+            dropRows(false, overflow, window.size() - page.size());
+            lastLoadedId = savedIdBound(false, lastLoadedId);
+            atEnd = false;
+        }
+        scrollTo(firstVisible + page.size());
+    }
+
+    // Remove up to count rows from the top or bottom, looking at most limit rows in. Rows with
+    // unsaved writes (including local inserts, which have negative temporary ids) stay in view.
+    private int dropRows(boolean fromTop, int count, int limit) {
+        Set<Person> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int n = 0; n < limit && dropped.size() < count; n++) {
+            Person person = window.get(fromTop ? n : window.size() - 1 - n);
+            if (!isUnsaved(person)) {
+                dropped.add(person);
+            }
+        }
+        window.removeAll(dropped);
+        return dropped.size();
+    }
+
+    // Smallest or largest id of the rows kept that match the database, the keyset cursor after a
+    // trim. Unsaved rows can sit outside the loaded range; appendPage skips them if fetched again.
+    private int savedIdBound(boolean smallest, int fallback) {
+        Integer bound = null;
+        for (Person person : window) {
+            if (!isUnsaved(person) && (bound == null || (smallest ? person.getId() < bound : person.getId() > bound))) {
+                bound = person.getId();
+            }
+        }
+        return bound == null ? fallback : bound;
+    }
+
+    private boolean isUnsaved(Person person) {
+        Integer id = person.getId();
+        return id == null || id < 0 || pendingWrites.test(id);
+    }
+
+    // Merge rows changed or deleted elsewhere into the window with a single list change.
+    // Updated rows are replaced in place, deleted ones dropped, and new rows appended only
+    // when the window already shows the end of the table; the rest arrive by scrolling.
+    public boolean applyChanges(ChangeSet changes) {
+        Set<Integer> deleted = new HashSet<>(changes.getDeletedIds());
+        Map<Integer, Person> upserts = new HashMap<>();
+        for (Person person : changes.getUpserts()) {
+            upserts.put(person.getId(), person);
+        }
+
+        boolean changed = false;
+        List<Person> merged = new ArrayList<>(window.size() + upserts.size());
+        for (Person person : window) {
+            Integer id = person.getId();
+            if (deleted.contains(id)) {
+                changed = true;
+                continue;
+            }
+            Person update = upserts.remove(id);
+            if (update != null && !sameValues(person, update)) {
+                merged.add(update);
+                changed = true;
+            } else {
+                merged.add(person);
+            }
+        }
+        if (atEnd && !loading) {
+            // Like local inserts these stay above lastLoadedId, so appendPage will not repeat them
+            for (Person person : changes.getUpserts()) {
+                if (upserts.containsKey(person.getId()) && person.getId() > lastLoadedId
+                        && !deleted.contains(person.getId())) {
+                    merged.add(person);
+                    changed = true;
+                }
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+
+        if (table == null) {
+            window.setAll(merged);
+            return true;
+        }
+        // Replacing rows drops them from the selection; reselect the surviving ones in one call,
+        // with the previously focused row last so it stays the selected item
+        Set<Integer> selectedIds = new HashSet<>();
+        for (Person person : table.getSelectionModel().getSelectedItems()) {
+            selectedIds.add(person.getId());
+        }
+        Person focused = table.getSelectionModel().getSelectedItem();
+        window.setAll(merged);
+        if (selectedIds.isEmpty()) {
+            return true;
+        }
+        List<Integer> indices = new ArrayList<>(selectedIds.size());
+        int focusedIndex = -1;
+        List<Person> items = table.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            Integer id = items.get(i).getId();
+            if (focused != null && Objects.equals(id, focused.getId())) {
+                focusedIndex = i;
+            } else if (selectedIds.contains(id)) {
+                indices.add(i);
+            }
+        }
+        if (focusedIndex >= 0) {
+            indices.add(focusedIndex);
+        }
+        if (!indices.isEmpty()) {
+            int[] rest = new int[indices.size() - 1];
+            for (int i = 1; i < indices.size(); i++) {
+                rest[i - 1] = indices.get(i);
+            }
+            table.getSelectionModel().selectIndices(indices.get(0), rest);
+        }
+        return true;
+    }
+
+    // Includes the version, so a row saved again with the same values still picks up the new one
+    private static boolean sameValues(Person a, Person b) {
+        return a.getVersion() == b.getVersion()
+                && Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getLastName(), b.getLastName())
+                && Objects.equals(a.getDepartment(), b.getDepartment())
+                && Objects.equals(a.getMajor(), b.getMajor())
+                && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getImageURL(), b.getImageURL());
+    }
+
+    // Watch the table's vertical scroll bar once its skin has been created.
+    public void attach(TableView<Person> table) {
+        this.table = table;
+        inWindowOrder = () -> table.getSortOrder().isEmpty() && table.getItems().size() == window.size();
+        if (table.getSkin() != null) {
+            hookScrollBar();
+        } else {
+            table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+                if (newSkin != null) {
+                    hookScrollBar();
+                }
+            });
+        }
+    }
+
+    public void setPendingWrites(IntPredicate pendingWrites) {
+        this.pendingWrites = pendingWrites;
+    }
+
+    void setInWindowOrder(BooleanSupplier inWindowOrder) {
+        this.inWindowOrder = inWindowOrder;
+    }
+
+    public boolean isAtEnd() {
+        return atEnd;
+    }
+
+    // True when the window holds the whole table, so local aggregates are complete
+    public boolean isFullyLoaded() {
+        return atStart && atEnd && !loading;
+    }
+
+    private void hookScrollBar() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    double range = bar.getMax() - bar.getMin();
+                    double value = newValue.doubleValue();
+                    if (value >= bar.getMax() - range * PREFETCH_THRESHOLD && value > oldValue.doubleValue()) {
+                        loadNext();
+                    } else if (value <= bar.getMin() + range * PREFETCH_THRESHOLD && value < oldValue.doubleValue()) {
+                        loadPrevious();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    private int firstVisibleIndex() {
+        if (table == null) {
+            return 0;
+        }
+        Node flow = table.lookup(".virtual-flow");
+        if (flow instanceof VirtualFlow<?> virtualFlow) {
+            IndexedCell<?> cell = virtualFlow.getFirstVisibleCell();
+            if (cell != null) {
+                return cell.getIndex();
+            }
+        }
+        return 0;
+    }
+
+    private void scrollTo(int index) {
+        if (table != null) {
+            table.scrollTo(Math.max(0, Math.min(index, window.size() - 1)));
+        }
+    }
+}
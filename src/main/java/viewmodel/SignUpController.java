@@ -2,19 +2,15 @@
 package viewmodel;
 
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
-import javafx.stage.Stage;
 import javafx.scene.control.Alert;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import service.UserSession;
 import javafx.fxml.FXML;
 
-public class SignUpController {
+public class SignUpController implements Navigator.Screen {
     @FXML
     private TextField usernameField;
 
@@ -53,14 +49,16 @@ public class SignUpController {
 
     public void goBack(ActionEvent actionEvent) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("/view/login.fxml"));
-            Scene scene = new Scene(root, 900, 600);
-            scene.getStylesheets().add(getClass().getResource("/css/lightTheme.css").toExternalForm());
-            Stage window = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            window.setScene(scene);
-            window.show();
+            Navigator.show((Node) actionEvent.getSource(), Navigator.LOGIN);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    // The screen is kept for the next visit; start it empty
+    @Override
+    public void onHidden() {
+        usernameField.clear();
+        passwordField.clear();
+    }
 }
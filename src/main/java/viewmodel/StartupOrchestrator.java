@@ -0,0 +1,105 @@
+package viewmodel;
+
+import dao.DbConnectivityClass;
+import javafx.scene.Parent;
+import javafx.scene.image.Image;
+import service.MyLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cold start work, run in parallel while the splash screen shows: the login and sign-up screens
+// (into the Navigator's cache) and the login background from bundled resources, the database
+// pool and first page of users, and the storage client used by the main screen.
+// Each phase logs how long it took. The main screen's FXML is not preloaded: its controller
+// starts syncing as soon as it is built.
+public class StartupOrchestrator {
+
+    static final String LOGIN_BACKGROUND = "/images/fscLogin.jpeg";
+    // Decoded at the window size instead of the file's full resolution
+    private static final double BACKGROUND_WIDTH = 900;
+    private static final double BACKGROUND_HEIGHT = 600;
+
+    private static volatile CompletableFuture<Image> loginBackground;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    // One thread per phase, so the login screen never queues behind the database
+    private final ExecutorService executor = Executors.newFixedThreadPool(5, r -> {
+        Thread thread = new Thread(r, "startup-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Start every phase and return the login screen once it is built. Failures are logged;
+    // only a failed login screen fails the returned future.
+    public CompletableFuture<Parent> start() {
+        loginBackground = phase("login background", StartupOrchestrator::loadLoginBackground);
+        phase("database", () -> {
+            DbConnectivityClass.ensureSchema();
+            DbConnectivityClass.warmUpPool();
+            // Cached by the DAO, so the main screen's first page does not wait for the database
+            return DbConnectivityClass.cnUtil.getPageAfter(0, DB_GUI_Controller.PAGE_SIZE);
+        });
+        phase("storage client", DB_GUI_Controller::storageUploader);
+        phase(Navigator.SIGN_UP, () -> Navigator.preload(Navigator.SIGN_UP));
+        CompletableFuture<Parent> login = phase(Navigator.LOGIN, () -> Navigator.preload(Navigator.LOGIN));
+        executor.shutdown();
+        return login;
+    }
+
+    // Log the total once the first screen the user can act on is showing
+    public void ready(String screen) {
+        MyLogger.makeLog("Startup: " + screen + " shown after " + elapsedMillis(startNanos) + " ms");
+    }
+
+    // The login background, waiting for the preload if it is still running
+    static Image loginBackground() {
+        CompletableFuture<Image> preload = loginBackground;
+        if (preload != null) {
+            Image image = preload.exceptionally(e -> null).join();
+            if (image != null) {
+                return image;
+            }
+        }
+        try {
+            return loadLoginBackground();
+        } catch (IOException e) {
+            MyLogger.makeLog("Could not load login background: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Image loadLoginBackground() throws IOException {
+        try (InputStream in = StartupOrchestrator.class.getResourceAsStream(LOGIN_BACKGROUND)) {
+            if (in == null) {
+                throw new IOException(LOGIN_BACKGROUND + " not found");
+            }
+            return new Image(in, BACKGROUND_WIDTH, BACKGROUND_HEIGHT, true, true);
+        }
+    }
+
+    private <T> CompletableFuture<T> phase(String name, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            long phaseStart = System.nanoTime();
+            try {
+                future.complete(work.call());
+                MyLogger.makeLog("Startup: " + name + " took " + elapsedMillis(phaseStart) + " ms");
+            } catch (Exception e) {
+                MyLogger.makeLog("Startup: " + name + " failed after " + elapsedMillis(phaseStart) + " ms: " + e);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static long elapsedMillis(long fromNanos) {
+        return (System.nanoTime() - fromNanos) / 1_000_000;
+    }
+}
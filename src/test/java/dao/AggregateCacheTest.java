@@ -0,0 +1,36 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregateCacheTest {
+
+    @Test
+    public void testResultIsCachedUntilInvalidated() {
+        AggregateCache cache = new AggregateCache(60_000);
+        AtomicInteger queries = new AtomicInteger();
+
+        assertEquals(1, cache.get("count", queries::incrementAndGet));
+        assertEquals(1, cache.get("count", queries::incrementAndGet));
+        cache.invalidateAll();
+        assertEquals(2, cache.get("count", queries::incrementAndGet));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testResultReadDuringAWriteIsNotCached() {
+        AggregateCache cache = new AggregateCache(60_000);
+        AtomicInteger queries = new AtomicInteger();
+
+        cache.get("count", () -> {
+            // A write lands while the query is running
+            cache.invalidateAll();
+            return queries.incrementAndGet();
+        });
+        assertEquals(2, cache.get("count", queries::incrementAndGet));
+    }
+}
@@ -0,0 +1,187 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private static ConnectionPool pool(String name, int maxSize, long acquireTimeoutMillis) {
+        return new ConnectionPool(H2Backend.memoryUrl(name), "sa", "", 0, maxSize, 60_000, acquireTimeoutMillis);
+    }
+
+    @Test
+    public void testReturnedConnectionIsReused() throws Exception {
+        ConnectionPool pool = pool("lease", 2, 1000);
+        Connection first = pool.getConnection();
+        assertEquals(1, pool.getActiveCount());
+        Connection physical = first.unwrap(Connection.class);
+        first.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+
+        try (Connection second = pool.getConnection()) {
+            assertNotSame(first, second);
+            assertSame(physical, second.unwrap(Connection.class));
+        }
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getBorrowCount());
+        pool.close();
+    }
+
+    @Test
+    public void testBorrowWaitsForAFreeConnectionAndTimesOut() throws Exception {
+        ConnectionPool pool = pool("bound", 1, 200);
+        Connection held = pool.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(SQLException.class, pool::getConnection);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(1, pool.getTimeoutCount());
+
+        // A waiting borrower gets the connection as soon as it is returned
+        ConnectionPool patient = pool("bound.wait", 1, 5000);
+        Connection busy = patient.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return patient.getConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        busy.close();
+        waiting.get(2, TimeUnit.SECONDS).close();
+
+        held.close();
+        pool.close();
+        patient.close();
+    }
+
+    @Test
+    public void testClosingTwiceReturnsTheConnectionOnce() throws Exception {
+        ConnectionPool pool = pool("twice", 2, 1000);
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+        assertThrows(SQLException.class, conn::createStatement);
+        pool.close();
+    }
+
+    @Test
+    public void testConcurrentClosesReturnTheConnectionOnce() throws Exception {
+        ConnectionPool pool = pool("twice.concurrent", 1, 100);
+        for (int i = 0; i < 200; i++) {
+            Connection conn = pool.getConnection();
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Runnable close = () -> {
+                try {
+                    barrier.await();
+                    conn.close();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            CompletableFuture.allOf(CompletableFuture.runAsync(close), CompletableFuture.runAsync(close))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(1, pool.getIdleCount());
+        }
+        // Still bounded to one connection: a released permit was not handed back twice
+        Connection held = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection);
+        held.close();
+        pool.close();
+    }
+
+    @Test
+    public void testClosedStatementsAreNotKeptForCancellation() throws Exception {
+        ConnectionPool pool = pool("statements", 1, 1000);
+        try (Connection conn = pool.getConnection()) {
+            for (int i = 0; i < 100; i++) {
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+            try (Statement open = conn.createStatement()) {
+                assertEquals(1, pool.trackedStatementCount(Thread.currentThread()));
+            }
+        }
+        assertEquals(0, pool.trackedStatementCount(Thread.currentThread()));
+        pool.close();
+    }
+
+    @Test
+    public void testBrokenAndIdleConnectionsAreEvicted() throws Exception {
+        ConnectionPool pool = pool("evict", 2, 1000);
+        Connection conn = pool.getConnection();
+        Connection physical = conn.unwrap(Connection.class);
+        conn.close();
+        physical.close();
+
+        // Past the validation bypass window the dead idle connection is pinged and replaced
+        Thread.sleep(600);
+        try (Connection replacement = pool.getConnection();
+             Statement statement = replacement.createStatement()) {
+            assertNotSame(physical, replacement.unwrap(Connection.class));
+            statement.execute("SELECT 1");
+        }
+        assertEquals(2, pool.getCreatedCount());
+        pool.close();
+
+        // Connections idle longer than the timeout are closed by the evictor (minSize is 0)
+        ConnectionPool idle = new ConnectionPool(H2Backend.memoryUrl("evict.idle"), "sa", "", 0, 2, 100, 1000);
+        idle.getConnection().close();
+        for (int i = 0; i < 50 && idle.getEvictedCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, idle.getEvictedCount());
+        assertEquals(0, idle.getIdleCount());
+        idle.close();
+    }
+
+    @Test
+    public void testCancelStatementsAbortsTheThreadsQuery() throws Exception {
+        ConnectionPool pool = pool("cancel", 2, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread[] worker = new Thread[1];
+        CompletableFuture<Exception> outcome = CompletableFuture.supplyAsync(() -> {
+            worker[0] = Thread.currentThread();
+            try (Connection conn = pool.getConnection();
+                 Statement statement = conn.createStatement()) {
+                started.countDown();
+                statement.executeQuery("SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B "
+                        + "WHERE A.\"X\" * B.\"X\" = 7");
+                return null;
+            } catch (SQLException e) {
+                return e;
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Runs for minutes unless cancelled; retry in case the query had not started yet
+        int cancelled = 0;
+        for (int i = 0; i < 250 && !outcome.isDone(); i++) {
+            cancelled += pool.cancelStatements(worker[0]);
+            Thread.sleep(20);
+        }
+        assertTrue(cancelled > 0);
+        assertNotNull(outcome.get(5, TimeUnit.SECONDS));
+        // Nothing is left to cancel once the connection is back in the pool
+        assertEquals(0, pool.cancelStatements(worker[0]));
+        assertEquals(0, pool.getActiveCount());
+        pool.close();
+    }
+}
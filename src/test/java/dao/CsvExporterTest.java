@@ -0,0 +1,88 @@
+package dao;
+
+import model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvExporterTest {
+
+    @Test
+    public void testQuoteLeavesPlainValuesAlone() {
+        assertEquals("Smith", CsvExporter.quote("Smith"));
+        assertEquals("", CsvExporter.quote(null));
+    }
+
+    @Test
+    public void testQuoteEscapesSpecialCharacters() {
+        assertEquals("\"Computer Science, BS\"", CsvExporter.quote("Computer Science, BS"));
+        assertEquals("\"O\"\"Brien\"", CsvExporter.quote("O\"Brien"));
+        assertEquals("\"line1\nline2\"", CsvExporter.quote("line1\nline2"));
+    }
+
+    @Test
+    public void testQuotedRowReadsBackThroughImporter() throws IOException {
+        String[] values = {"Ann", "O\"Brien", "Math, Science", "CSC", "ann@example.com", "a\nb"};
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append(CsvExporter.quote(values[i]));
+        }
+
+        BufferedReader reader = new BufferedReader(new StringReader(row + "\r\n"));
+        int[] lineNumber = {0};
+        List<String> fields = CsvImporter.readRecord(reader, lineNumber);
+        assertEquals(List.of(values), fields);
+        assertEquals(2, lineNumber[0]);
+        assertNull(CsvImporter.readRecord(reader, lineNumber));
+    }
+
+    @Test
+    public void testExportReplacesTheFileWhenComplete(@TempDir Path dir) throws IOException, SQLException {
+        DbConnectivityClass.cnUtil.insertUser(new Person("Export", "Complete", "CS", "Software",
+                "export.complete@example.com", ""));
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "previous export");
+
+        long rows = new CsvExporter(false).exportToFile(file);
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(CsvExporter.IMPORT_HEADER, lines.get(0));
+        assertEquals(rows + 1, lines.size());
+        assertEquals(List.of(file), filesIn(dir));
+    }
+
+    @Test
+    public void testCancelledExportKeepsTheExistingFile(@TempDir Path dir) throws IOException {
+        DbConnectivityClass.cnUtil.insertUser(new Person("Export", "Cancelled", "CS", "Software",
+                "export.cancelled@example.com", ""));
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "previous export");
+        CsvExporter exporter = new CsvExporter(false);
+        exporter.setCancellationCheck(() -> true);
+
+        assertThrows(CancellationException.class, () -> exporter.exportToFile(file));
+
+        assertEquals("previous export", Files.readString(file));
+        assertEquals(List.of(file), filesIn(dir));
+    }
+
+    private static List<Path> filesIn(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dao;
+
+import model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DbConnectivityClass db = DbConnectivityClass.cnUtil;
+
+    private Path csv(String content) throws Exception {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    public void testHeaderIsSkippedAndImageUrlIsOptional() throws Exception {
+        Path file = csv("First Name,Last Name,Department,Major,Email,Image URL\n"
+                + "Ada,Lovelace,Math,CS,import.header1@example.com,\n"
+                + "Alan,Turing,Math,CS,import.header2@example.com,http://example.com/a.png\n"
+                + "Grace,,Navy,CS,import.header3@example.com,\n");
+
+        CsvImporter.ImportResult result = new CsvImporter().importFile(file);
+
+        assertEquals(2, result.getInsertedCount());
+        assertEquals(1, result.getRejects().size());
+        assertEquals(4, result.getRejects().get(0).getLineNumber());
+        assertEquals("Blank field", result.getRejects().get(0).getReason());
+        int id = db.retrieveId(new Person("Ada", "Lovelace", "Math", "CS", "import.header1@example.com", ""));
+        assertEquals("", db.findById(id).getImageURL());
+    }
+
+    @Test
+    public void testQuotedFieldsMayHoldCommasQuotesAndLineBreaks() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader(
+                "\"Smith, Jr.\",\"Say \"\"hi\"\"\",\"two\nlines\",x\nnext,row\n"));
+        int[] lineNumber = {0};
+
+        assertEquals(List.of("Smith, Jr.", "Say \"hi\"", "two\nlines", "x"), CsvImporter.readRecord(reader, lineNumber));
+        assertEquals(2, lineNumber[0]);
+        assertEquals(List.of("next", "row"), CsvImporter.readRecord(reader, lineNumber));
+        assertEquals(3, lineNumber[0]);
+        assertNull(CsvImporter.readRecord(reader, lineNumber));
+    }
+
+    @Test
+    public void testDuplicateEmailsInTheFileAreRejected() throws Exception {
+        Path file = csv("Ada,Lovelace,Math,CS,import.dup@example.com,\n"
+                + "Ada,Byron,Math,CS,IMPORT.DUP@example.com,\n"
+                + "Bad,Email,Math,CS,not-an-email,\n");
+
+        CsvImporter.ImportResult result = new CsvImporter().importFile(file);
+
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(2, result.getRejects().size());
+        assertTrue(result.getRejects().get(0).getReason().startsWith("Duplicate email in file"));
+        assertTrue(result.getRejects().get(1).getReason().startsWith("Invalid email"));
+    }
+
+    @Test
+    public void testRejectedBatchIsRetriedRowByRow() throws Exception {
+        db.insertUser(new Person("Taken", "Already", "Math", "CS", "import.taken@example.com", ""));
+        Path file = csv("One,Row,Math,CS,import.retry1@example.com,\n"
+                + "Two,Row,Math,CS,import.taken@example.com,\n"
+                + "Three,Row,Math,CS,import.retry3@example.com,\n"
+                + "Four,Row,Math,CS,import.retry4@example.com,\n");
+
+        // The first batch holds the email that is already in the table
+        CsvImporter.ImportResult result = new CsvImporter(3).importFile(file);
+
+        assertEquals(3, result.getInsertedCount());
+        assertEquals(1, result.getRejects().size());
+        assertEquals(2, result.getRejects().get(0).getLineNumber());
+        for (String email : List.of("import.retry1@example.com", "import.retry3@example.com", "import.retry4@example.com")) {
+            assertTrue(db.retrieveId(new Person("", "", "", "", email, "")) > 0, email);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseBackendTest {
+
+    @Test
+    public void testMySqlUrlIsSplitIntoServerAndDatabase() {
+        String url = "jdbc:mysql://db.example.com:3306/roster?rewriteBatchedStatements=true";
+        assertEquals("jdbc:mysql://db.example.com:3306", MySqlBackend.serverUrl(url));
+        assertEquals("roster", MySqlBackend.databaseName(url));
+        assertEquals(MySqlBackend.DB_NAME, MySqlBackend.databaseName("jdbc:mysql://db.example.com"));
+    }
+
+    @Test
+    public void testH2DefaultsToLocalFileInMySqlMode() {
+        H2Backend backend = new H2Backend(null, null, null);
+        assertEquals("h2", backend.getName());
+        assertEquals("sa", backend.getUsername());
+        assertTrue(backend.getUrl().startsWith("jdbc:h2:file:"));
+        assertTrue(backend.getUrl().contains("MODE=MySQL"));
+        assertTrue(H2Backend.fileUrl(Path.of("data", "users")).contains(Path.of("data", "users").toAbsolutePath().toString()));
+    }
+}
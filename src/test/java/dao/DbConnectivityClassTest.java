@@ -0,0 +1,110 @@
+package dao;
+
+import model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DbConnectivityClassTest {
+
+    private final DbConnectivityClass db = DbConnectivityClass.cnUtil;
+
+    private static Person person(String lastName, String email) {
+        return new Person("Prefix", lastName, "CS", "Software", email, "");
+    }
+
+    @Test
+    public void testInsertUserReturnsTheGeneratedKey() {
+        Person inserted = db.insertUser(person("Inserted", "insert.key@example.com"));
+
+        assertNotNull(inserted.getId());
+        assertEquals(db.retrieveId(inserted), inserted.getId());
+        Person stored = db.findById(inserted.getId());
+        assertEquals("insert.key@example.com", stored.getEmail());
+    }
+
+    @Test
+    public void testFailedInsertThrows() {
+        db.insertUser(person("First", "insert.duplicate@example.com"));
+        Person duplicate = person("Second", "insert.duplicate@example.com");
+
+        assertThrows(RuntimeException.class, () -> db.insertUser(duplicate));
+        assertNull(duplicate.getId());
+    }
+
+    @Test
+    public void testSearchByPrefixMatchesLastNameOrEmail() {
+        Person byLastName = db.insertUser(person("Quenneville", "q.one@example.com"));
+        Person byEmail = db.insertUser(person("Other", "quennell@example.com"));
+        db.insertUser(person("Quinn", "q.two@example.com"));
+
+        List<Integer> ids = db.searchByPrefix("quenn", 10).stream().map(Person::getId).toList();
+        assertEquals(List.of(byEmail.getId()), ids);
+
+        ids = db.searchByPrefix("Quenn", 10).stream().map(Person::getId).toList();
+        assertEquals(List.of(byLastName.getId()), ids);
+        assertEquals(1, db.searchByPrefix("Qu", 1).size());
+    }
+
+    @Test
+    public void testSearchByPrefixTreatsWildcardsLiterally() {
+        db.insertUser(person("Under_score", "under.score@example.com"));
+        db.insertUser(person("Underxscore", "under.x@example.com"));
+
+        List<Person> found = db.searchByPrefix("Under_", 10);
+        assertEquals(1, found.size());
+        assertEquals("Under_score", found.get(0).getLastName());
+        assertTrue(db.searchByPrefix("%", 10).isEmpty());
+    }
+
+    @Test
+    public void testStaleWatermarkAsksForFullReload() {
+        Timestamp now = db.getServerTime();
+
+        ChangeSet stale = db.fetchChangesSince(
+                new Timestamp(now.getTime() - DbConnectivityClass.TOMBSTONE_RETENTION_MS - 60_000), 0);
+        assertTrue(stale.isFullReload());
+        assertFalse(stale.isEmpty());
+        assertTrue(stale.getUpserts().isEmpty());
+        assertFalse(stale.getWatermark().before(now));
+
+        assertFalse(db.fetchChangesSince(now, 2000).isFullReload());
+    }
+
+    @Test
+    public void testPurgeDropsOnlyExpiredTombstones() throws SQLException {
+        Timestamp before = db.getServerTime();
+        Person deleted = db.insertUser(person("Deleted", "purge.recent@example.com"));
+        db.deleteRecord(deleted);
+        try (Connection conn = DbConnectivityClass.getPool().getConnection();
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO users_tombstones (id, deleted_at) VALUES (?, ?)")) {
+            insert.setInt(1, 987_654);
+            insert.setTimestamp(2, new Timestamp(before.getTime() - DbConnectivityClass.TOMBSTONE_RETENTION_MS - 60_000));
+            insert.executeUpdate();
+        }
+
+        assertTrue(db.purgeTombstones() >= 1);
+
+        assertEquals(0, tombstoneCount(987_654));
+        assertTrue(db.fetchChangesSince(before, 0).getDeletedIds().contains(deleted.getId()));
+    }
+
+    private static int tombstoneCount(int id) throws SQLException {
+        try (Connection conn = DbConnectivityClass.getPool().getConnection();
+             PreparedStatement query = conn.prepareStatement("SELECT COUNT(*) FROM users_tombstones WHERE id = ?")) {
+            query.setInt(1, id);
+            try (ResultSet resultSet = query.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dao;
+
+import model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonCacheTest {
+
+    private static Person person(int id) {
+        return new Person(id, "First" + id, "Last" + id, "Dept", "CSC", "user" + id + "@example.com", "");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        PersonCache cache = new PersonCache(2, 60_000);
+        cache.put(person(1));
+        cache.put(person(2));
+        assertNotNull(cache.get(1));
+        cache.put(person(3));
+
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testPageMissesOnceAnyRowIsInvalidated() {
+        PersonCache cache = new PersonCache(100, 60_000);
+        cache.putPage(true, 0, 2, List.of(person(1), person(2)));
+        cache.putPage(true, 2, 2, List.of(person(3)));
+
+        assertEquals(2, cache.getPage(true, 0, 2).size());
+        cache.invalidate(2);
+        assertNull(cache.getPage(true, 0, 2));
+
+        // Only the partial tail page can gain rows from an insert
+        cache.invalidatePartialPages();
+        assertNull(cache.getPage(true, 2, 2));
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() throws InterruptedException {
+        PersonCache cache = new PersonCache(100, 1);
+        cache.put(person(1));
+        Thread.sleep(5);
+        assertNull(cache.get(1));
+    }
+}
@@ -0,0 +1,48 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlanCheckerTest {
+
+    @Test
+    public void testRecognisesFullScans() {
+        assertTrue(QueryPlanChecker.isMySqlFullScan("ALL"));
+        assertFalse(QueryPlanChecker.isMySqlFullScan("ref"));
+        assertFalse(QueryPlanChecker.isMySqlFullScan("index"));
+        assertTrue(QueryPlanChecker.isH2FullScan("SELECT * FROM PUBLIC.USERS /* PUBLIC.USERS.tableScan */"));
+        assertFalse(QueryPlanChecker.isH2FullScan(
+                "SELECT * FROM PUBLIC.USERS /* PUBLIC.IDX_USERS_LAST_NAME_FIRST_NAME: LAST_NAME = ?1 */"));
+    }
+
+    @Test
+    public void testProblemsAreListedFirst() {
+        List<QueryPlanChecker.PlanCheck> checks = List.of(
+                new QueryPlanChecker.PlanCheck("countUsers", "SELECT COUNT(*) FROM users", false, "type=ALL", true),
+                new QueryPlanChecker.PlanCheck("findById", "SELECT ...", true, "type=const", false),
+                new QueryPlanChecker.PlanCheck("queryUserByLastName", "SELECT ...", true, "type=ALL", true));
+
+        String report = QueryPlanChecker.format(checks);
+        assertTrue(report.startsWith("FULL SCAN  queryUserByLastName"));
+        assertTrue(report.contains("scan (ok)  countUsers"));
+        assertTrue(report.contains("index      findById"));
+    }
+
+    @Test
+    public void testHotQueriesUseIndexesOnEmbeddedDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(H2Backend.memoryUrl("plans"), "sa", "")) {
+            new SchemaMigrator().migrate(conn);
+            List<QueryPlanChecker.PlanCheck> checks = new QueryPlanChecker().checkAll(conn);
+
+            for (QueryPlanChecker.PlanCheck check : checks) {
+                assertFalse(check.isProblem(), check.getName() + ": " + check.getPlan());
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static Connection connect(String name) throws SQLException {
+        return DriverManager.getConnection(H2Backend.memoryUrl(name), "sa", "");
+    }
+
+    private static int appliedCount(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + SchemaMigrator.VERSION_TABLE)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    public void testSecondMigrateIsANoOp() throws SQLException {
+        try (Connection conn = connect("migrate.twice")) {
+            SchemaMigrator migrator = new SchemaMigrator();
+            assertEquals(SchemaMigrator.latestVersion(), migrator.migrate(conn));
+            assertEquals(SchemaMigrator.latestVersion(), appliedCount(conn));
+
+            assertEquals(SchemaMigrator.latestVersion(), migrator.migrate(conn));
+            assertEquals(SchemaMigrator.latestVersion(), appliedCount(conn));
+        }
+    }
+
+    @Test
+    public void testInterruptedMigrationsFinishOnTheNextRun() throws SQLException {
+        try (Connection conn = connect("migrate.interrupted")) {
+            SchemaMigrator migrator = new SchemaMigrator();
+            migrator.migrate(conn);
+            // As if each run stopped after its schema changes (committed by the DDL) but before
+            // the version was recorded
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + SchemaMigrator.VERSION_TABLE + " WHERE version > 1");
+            }
+
+            assertEquals(SchemaMigrator.latestVersion(), migrator.migrate(conn));
+            assertEquals(SchemaMigrator.latestVersion(), appliedCount(conn));
+        }
+    }
+
+    @Test
+    public void testConcurrentMigrationsApplyEachVersionOnce() throws Exception {
+        List<CompletableFuture<Integer>> runs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            runs.add(CompletableFuture.supplyAsync(() -> {
+                try (Connection conn = connect("migrate.concurrent")) {
+                    return new SchemaMigrator().migrate(conn);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (CompletableFuture<Integer> run : runs) {
+            assertEquals(SchemaMigrator.latestVersion(), run.get(10, TimeUnit.SECONDS));
+        }
+        try (Connection conn = connect("migrate.concurrent")) {
+            assertEquals(SchemaMigrator.latestVersion(), appliedCount(conn));
+        }
+    }
+}
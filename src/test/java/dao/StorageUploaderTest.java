@@ -0,0 +1,101 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageUploaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path randomFile(int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return Files.write(tempDir.resolve("photo.jpg"), bytes);
+    }
+
+    @Test
+    public void testUploadInParallelBlocks() throws Exception {
+        Path file = randomFile(10_000);
+        FileSystemBlobStore store = new FileSystemBlobStore(tempDir.resolve("blobs"));
+        long[] lastProgress = new long[1];
+
+        new StorageUploader(store, 1024, 3).upload(file, "photo.jpg", bytes -> lastProgress[0] = bytes);
+
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(tempDir.resolve("blobs/photo.jpg")));
+        assertEquals(10_000, lastProgress[0]);
+        assertTrue(store.getUncommittedBlockIds("photo.jpg").isEmpty());
+    }
+
+    @Test
+    public void testFailedUploadResumesWithMissingBlocks() throws Exception {
+        Path file = randomFile(10_000);
+        FlakyStore store = new FlakyStore(new FileSystemBlobStore(tempDir.resolve("blobs")));
+        StorageUploader uploader = new StorageUploader(store, 1024, 1);
+
+        store.failOnCall = 4;
+        assertThrows(IOException.class, () -> uploader.upload(file, "photo.jpg", bytes -> { }));
+        assertFalse(store.exists("photo.jpg"));
+        Set<String> stagedBeforeRetry = store.getUncommittedBlockIds("photo.jpg");
+        assertEquals(3, stagedBeforeRetry.size());
+
+        store.failOnCall = -1;
+        store.staged.clear();
+        uploader.upload(file, "photo.jpg", bytes -> { });
+
+        // Only the seven blocks that were not staged the first time are sent again
+        assertEquals(7, store.staged.size());
+        store.staged.forEach(id -> assertFalse(stagedBeforeRetry.contains(id)));
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(tempDir.resolve("blobs/photo.jpg")));
+    }
+
+    private static class FlakyStore implements BlobStore {
+        private final BlobStore delegate;
+        private final Set<String> staged = ConcurrentHashMap.newKeySet();
+        private int calls;
+        private int failOnCall = -1;
+
+        FlakyStore(BlobStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void stageBlock(String blobName, String blockId, byte[] data, int length) throws IOException {
+            if (++calls == failOnCall) {
+                throw new IOException("connection reset");
+            }
+            delegate.stageBlock(blobName, blockId, data, length);
+            staged.add(blockId);
+        }
+
+        @Override
+        public Set<String> getUncommittedBlockIds(String blobName) throws IOException {
+            return delegate.getUncommittedBlockIds(blobName);
+        }
+
+        @Override
+        public void commitBlockList(String blobName, List<String> blockIds) throws IOException {
+            delegate.commitBlockList(blobName, blockIds);
+        }
+
+        @Override
+        public boolean exists(String blobName) throws IOException {
+            return delegate.exists(blobName);
+        }
+
+        @Override
+        public String getUrl(String blobName) {
+            return delegate.getUrl(blobName);
+        }
+    }
+}
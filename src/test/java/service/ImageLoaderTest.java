@@ -0,0 +1,140 @@
+package service;
+
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    private String image(String name) throws Exception {
+        Path file = tempDir.resolve(name + ".png");
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file.toUri().toString();
+    }
+
+    // Hold the loader's only thread until the returned latch is released
+    private CountDownLatch blockExecutor() {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return release;
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImageIsEvictedFromMemory() throws Exception {
+        ImageLoader loader = new ImageLoader(tempDir.resolve("cache"), 2, executor);
+        String a = image("a");
+        String b = image("b");
+        String c = image("c");
+
+        Image first = loader.load(a, 8).get(5, TimeUnit.SECONDS);
+        loader.load(b, 8).get(5, TimeUnit.SECONDS);
+        assertSame(first, loader.load(a, 8).get());
+        loader.load(c, 8).get(5, TimeUnit.SECONDS);
+
+        // b was used least recently, so only it has to be read again (from the disk cache)
+        assertSame(first, loader.load(a, 8).get());
+        loader.load(b, 8).get(5, TimeUnit.SECONDS);
+        String stats = loader.getStats();
+        assertTrue(stats.contains("memoryHits=2"), stats);
+        assertTrue(stats.contains("diskHits=1"), stats);
+        assertTrue(stats.contains("downloads=3"), stats);
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneLoad() throws Exception {
+        ImageLoader loader = new ImageLoader(tempDir.resolve("cache"), 10, executor);
+        String url = image("shared");
+        CountDownLatch release = blockExecutor();
+
+        CompletableFuture<Image> first = loader.load(url, 8);
+        CompletableFuture<Image> second = loader.load(url, 8);
+        assertTrue(loader.getStats().contains("inFlight=1"));
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertTrue(loader.getStats().contains("downloads=1"));
+    }
+
+    @Test
+    public void testLoadIsAbandonedOnlyWhenEveryCallerCancels() throws Exception {
+        ImageLoader loader = new ImageLoader(tempDir.resolve("cache"), 10, executor);
+        String wanted = image("wanted");
+        String dropped = image("dropped");
+        CountDownLatch release = blockExecutor();
+
+        CompletableFuture<Image> kept = loader.load(wanted, 8);
+        loader.load(wanted, 8).cancel(false);
+        loader.load(dropped, 8).cancel(false);
+        assertTrue(loader.getStats().contains("inFlight=1"));
+        release.countDown();
+
+        assertNotNull(kept.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(loader.getStats().contains("downloads=1"));
+    }
+
+    @Test
+    public void testDiskCacheKeepsRecentlyReadFiles() throws Exception {
+        Path cacheDir = tempDir.resolve("cache");
+        String read = image("read");
+        String old = image("old");
+        new ImageLoader(cacheDir, 10, executor).load(read, 8).get(5, TimeUnit.SECONDS);
+        Path readFile = onlyFile(cacheDir);
+        Files.move(readFile, tempDir.resolve("aside"));
+        new ImageLoader(cacheDir, 10, executor).load(old, 8).get(5, TimeUnit.SECONDS);
+        Path oldFile = onlyFile(cacheDir);
+        Files.move(tempDir.resolve("aside"), readFile);
+        // Written in this order, so by write time "read" would go first
+        Files.setLastModifiedTime(readFile, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(oldFile, FileTime.fromMillis(2_000_000));
+
+        ImageLoader loader = new ImageLoader(cacheDir, 10, executor);
+        loader.load(read, 8).get(5, TimeUnit.SECONDS);
+        assertTrue(loader.getStats().contains("diskHits=1"));
+        loader.trimDiskCache(Files.size(readFile));
+
+        assertTrue(Files.exists(readFile));
+        assertFalse(Files.exists(oldFile));
+    }
+
+    private static Path onlyFile(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> all = files.toList();
+            assertEquals(1, all.size());
+            return all.get(0);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagePreprocessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIdenticalContentGetsTheSameBlobName() throws Exception {
+        Path a = Files.write(tempDir.resolve("a.JPG"), new byte[]{1, 2, 3});
+        Path b = Files.write(tempDir.resolve("b.jpg"), new byte[]{1, 2, 3});
+        ImagePreprocessor preprocessor = new ImagePreprocessor(64);
+
+        ImagePreprocessor.PreparedImage first = preprocessor.prepare(a);
+        assertEquals(first.blobName(), preprocessor.prepare(b).blobName());
+        assertEquals("images/039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81.jpg", first.blobName());
+        assertEquals("thumbnails/039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81.png",
+                first.thumbnailBlobName());
+        assertEquals("https://host/media-files/thumbnails/039058c6.png",
+                ImagePreprocessor.thumbnailUrlFor("https://host/media-files/images/039058c6.jpg"));
+        assertNull(ImagePreprocessor.thumbnailUrlFor("https://host/media-files/photo.jpg"));
+    }
+
+    @Test
+    public void testThumbnailKeepsAspectRatio() throws Exception {
+        Path image = tempDir.resolve("wide.png");
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", image.toFile());
+
+        Path thumbnail = new ImagePreprocessor(64).renderThumbnail(image);
+        BufferedImage result = ImageIO.read(thumbnail.toFile());
+        assertEquals(64, result.getWidth());
+        assertEquals(32, result.getHeight());
+        Files.delete(thumbnail);
+
+        assertNull(new ImagePreprocessor(64).renderThumbnail(Files.write(tempDir.resolve("x.png"), new byte[]{1})));
+    }
+}
@@ -0,0 +1,41 @@
+package service;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Person;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonIndexTest {
+
+    @Test
+    public void testIndexFollowsListChanges() {
+        Person ann = new Person(1, "Ann", "Smith", "Science", "CSC", "ann@example.com", "");
+        Person bob = new Person(2, "Bob", "Smithers", "Business", "CPIS", "bob@example.com", "");
+        Person cat = new Person(3, "Cat", "Jones", "Science", "CSC", "cat@example.com", "");
+        ObservableList<Person> data = FXCollections.observableArrayList(ann, bob);
+
+        PersonIndex index = new PersonIndex();
+        index.attach(data);
+        data.add(cat);
+
+        assertEquals(3, index.size());
+        assertSame(bob, index.findByEmail("BOB@example.com"));
+        assertEquals(2L, index.getMajorCounts().get("CSC"));
+        assertEquals(2L, index.getDepartmentCounts().get("Science"));
+
+        Person annEdited = new Person(1, "Ann", "Adams", "Business", "CPIS", "ann@example.com", "");
+        data.set(0, annEdited);
+        data.remove(cat);
+
+        assertEquals(2, index.size());
+        assertSame(annEdited, index.findByEmail("ann@example.com"));
+        assertNull(index.getMajorCounts().get("CSC"));
+        assertEquals(2L, index.getMajorCounts().get("CPIS"));
+
+        // Same keys as the GROUP BY queries: a missing major is counted as blank
+        data.add(new Person(4, "Dan", "Lee", "Science", null, "dan@example.com", ""));
+        assertEquals(1L, index.getMajorCounts().get(""));
+    }
+}
@@ -0,0 +1,93 @@
+package service;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonSearchIndexTest {
+
+    private static Person person(int id, String firstName, String lastName, String major) {
+        return new Person(id, firstName, lastName, "Engineering", major,
+                firstName.toLowerCase() + "." + lastName.toLowerCase() + "@example.com", "");
+    }
+
+    @Test
+    public void testWithinOneEdit() {
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "smith"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "smyth"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "smth"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smth", "smith"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "smiths"));
+        assertFalse(PersonSearchIndex.withinOneEdit("smith", "smythe"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "smiht"));
+        assertTrue(PersonSearchIndex.withinOneEdit("smith", "msith"));
+        assertFalse(PersonSearchIndex.withinOneEdit("smith", "mstih"));
+        assertFalse(PersonSearchIndex.withinOneEdit("smith", "htims"));
+        assertFalse(PersonSearchIndex.withinOneEdit("smith", "smi"));
+    }
+
+    @Test
+    public void testEveryTermMustMatch() {
+        ObservableList<Person> people = FXCollections.observableArrayList(
+                person(1, "Ada", "Smith", "Mathematics"),
+                person(2, "Alan", "Smith", "Physics"),
+                person(3, "Ada", "Jones", "Physics"));
+        PersonSearchIndex index = new PersonSearchIndex();
+        index.attach(people);
+
+        assertEquals(Set.of(people.get(0)), index.search("ada smith"));
+        assertEquals(Set.of(people.get(1)), index.search("Smith, physics"));
+        assertTrue(index.search("ada chemistry").isEmpty());
+        assertNull(index.search("  "));
+    }
+
+    @Test
+    public void testTermsMatchByPrefixAndOneTypo() {
+        ObservableList<Person> people = FXCollections.observableArrayList(
+                person(1, "Ada", "Smithson", "Mathematics"),
+                person(2, "Alan", "Turing", "Computing"));
+        PersonSearchIndex index = new PersonSearchIndex();
+        index.attach(people);
+
+        assertEquals(Set.of(people.get(0)), index.search("smi"));
+        assertEquals(Set.of(people.get(1)), index.search("comp"));
+        assertEquals(Set.of(people.get(0)), index.search("ada.smithson@example.com"));
+        // No token starts with "turnig", but "turing" is one edit away
+        assertEquals(Set.of(people.get(1)), index.search("turnig"));
+        // Too short for typo tolerance
+        assertTrue(index.search("tx").isEmpty());
+
+        // The index follows the list
+        people.remove(0);
+        assertTrue(index.search("smi").isEmpty());
+    }
+
+    @Test
+    public void testPeopleOutsideTheIndexAreMatchedTheSameWay() {
+        Person person = person(1, "Ada", "Smithson", "Mathematics");
+        assertTrue(PersonSearchIndex.matches(person, "smith math"));
+        assertFalse(PersonSearchIndex.matches(person, "smith physics"));
+        assertEquals("Smithson", PersonSearchIndex.longestTerm("ada Smithson"));
+    }
+
+    @Test
+    public void testSwappedLettersMatchWhereverTheTermIs() {
+        ObservableList<Person> people = FXCollections.observableArrayList(
+                person(1, "Ada", "Smith", "Mathematics"),
+                person(2, "Alan", "Jones", "Mathematics"));
+        PersonSearchIndex index = new PersonSearchIndex();
+        index.attach(people);
+
+        // The longest term is looked up through the index, the other terms per candidate
+        assertEquals(Set.of(people.get(0)), index.search("smtih"));
+        assertEquals(Set.of(people.get(0)), index.search("mathematics smtih"));
+        assertTrue(PersonSearchIndex.matches(people.get(0), "smtih"));
+        assertTrue(PersonSearchIndex.matches(people.get(0), "mathematics smtih"));
+        assertFalse(PersonSearchIndex.matches(people.get(1), "mathematics smtih"));
+    }
+}
@@ -0,0 +1,62 @@
+package service;
+
+import model.Person;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void people(int count, Consumer<Person> action) {
+        String[] majors = {"CSC", "CPIS", "Business"};
+        for (int i = 1; i <= count; i++) {
+            action.accept(new Person(i, "First" + i, "Last" + i, "Computing", majors[i % 3],
+                    "user" + i + "@example.com", ""));
+        }
+    }
+
+    @Test
+    public void testRosterSpansPages() throws Exception {
+        Path out = tempDir.resolve("roster.pdf");
+        long rows = new ReportGenerator().generate(ReportGenerator.ReportType.FULL_ROSTER,
+                action -> people(500, action), 500, out);
+
+        assertEquals(500, rows);
+        try (PDDocument document = PDDocument.load(out.toFile())) {
+            assertTrue(document.getNumberOfPages() >= 9);
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(document.getNumberOfPages());
+            stripper.setEndPage(document.getNumberOfPages());
+            String lastPage = stripper.getText(document);
+            // The table header is repeated on every page
+            assertTrue(lastPage.contains("First Name"));
+            assertTrue(lastPage.contains("user500@example.com"));
+        }
+    }
+
+    @Test
+    public void testSummaryCountsEachMajor() throws Exception {
+        Path out = tempDir.resolve("majors.pdf");
+        new ReportGenerator().generate(ReportGenerator.ReportType.BY_MAJOR, action -> people(30, action), -1, out);
+
+        try (PDDocument document = PDDocument.load(out.toFile())) {
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Total students: 30"));
+            assertTrue(text.contains("33.3%"));
+        }
+    }
+
+    @Test
+    public void testUnencodableCharactersAreReplaced() {
+        assertEquals("Zo? café", ReportGenerator.printable("Zoł café"));
+    }
+}
@@ -0,0 +1,115 @@
+package service;
+
+import dao.BlobStore;
+import dao.FileSystemBlobStore;
+import dao.StorageUploader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFailedUploadIsRetried() throws Exception {
+        Path file = Files.write(tempDir.resolve("a.png"), new byte[5000]);
+        FileSystemBlobStore blobs = new FileSystemBlobStore(tempDir.resolve("blobs"));
+        AtomicInteger calls = new AtomicInteger();
+        BlobStore flaky = new BlobStore() {
+            @Override
+            public void stageBlock(String blobName, String blockId, byte[] data, int length) throws IOException {
+                if (calls.incrementAndGet() == 2) {
+                    throw new IOException("connection reset");
+                }
+                blobs.stageBlock(blobName, blockId, data, length);
+            }
+
+            @Override
+            public Set<String> getUncommittedBlockIds(String blobName) throws IOException {
+                return blobs.getUncommittedBlockIds(blobName);
+            }
+
+            @Override
+            public void commitBlockList(String blobName, List<String> blockIds) throws IOException {
+                blobs.commitBlockList(blobName, blockIds);
+            }
+
+            @Override
+            public boolean exists(String blobName) {
+                return blobs.exists(blobName);
+            }
+
+            @Override
+            public String getUrl(String blobName) {
+                return blobs.getUrl(blobName);
+            }
+        };
+        UploadQueue queue = new UploadQueue(new StorageUploader(flaky, 1024, 1), tempDir.resolve("journal.txt"),
+                1, 3, 10);
+        CountDownLatch finished = new CountDownLatch(1);
+        UploadQueue.UploadJob[] result = new UploadQueue.UploadJob[1];
+        queue.setListener(new UploadQueue.Listener() {
+            @Override
+            public void onStats(UploadQueue.Stats stats) {
+            }
+
+            @Override
+            public void onJobFinished(UploadQueue.UploadJob job, Exception error) {
+                result[0] = job;
+                finished.countDown();
+            }
+        });
+
+        queue.enqueueForPerson(file, 7);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(UploadQueue.State.DONE, result[0].getState());
+        assertEquals(2, result[0].getAttempts());
+        assertEquals(7, result[0].getPersonId());
+        assertTrue(blobs.exists("a.png"));
+        assertTrue(Files.readAllLines(tempDir.resolve("journal.txt")).isEmpty());
+        queue.shutdown();
+    }
+
+    @Test
+    public void testJournaledUploadsAreRestored() throws Exception {
+        Path file = Files.write(tempDir.resolve("b.png"), new byte[100]);
+        Files.write(tempDir.resolve("journal.txt"), List.of("b.png\t42\t" + file.toAbsolutePath(),
+                "gone.png\t\t" + tempDir.resolve("gone.png")));
+        FileSystemBlobStore blobs = new FileSystemBlobStore(tempDir.resolve("blobs"));
+        UploadQueue queue = new UploadQueue(new StorageUploader(blobs, 1024, 1), tempDir.resolve("journal.txt"),
+                1, 1, 10);
+        CountDownLatch finished = new CountDownLatch(1);
+        UploadQueue.UploadJob[] result = new UploadQueue.UploadJob[1];
+        queue.setListener(new UploadQueue.Listener() {
+            @Override
+            public void onStats(UploadQueue.Stats stats) {
+            }
+
+            @Override
+            public void onJobFinished(UploadQueue.UploadJob job, Exception error) {
+                result[0] = job;
+                finished.countDown();
+            }
+        });
+
+        // Files that no longer exist are dropped from the journal
+        assertEquals(1, queue.restore());
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(blobs.exists("b.png"));
+        // The restored job still knows whose picture it is
+        assertEquals(42, result[0].getPersonId());
+        queue.shutdown();
+    }
+}
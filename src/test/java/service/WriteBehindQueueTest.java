@@ -0,0 +1,304 @@
+package service;
+
+import dao.DbConnectivityClass;
+import dao.UpdateConflictException;
+import dao.UserRepository;
+import model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DbConnectivityClass db = DbConnectivityClass.cnUtil;
+
+    @Test
+    public void testWritesToOneIdAreCoalesced() throws Exception {
+        Path journal = tempDir.resolve("journal.txt");
+        WriteBehindQueue queue = new WriteBehindQueue(db, journal, 1000);
+
+        Person added = queue.insert(person("Coal", "coalesce.insert@example.com"));
+        assertTrue(added.getId() < 0);
+        queue.update(added.getId(), person("Coalesced", "coalesce.insert@example.com"));
+        assertEquals(1, queue.getPendingCount());
+        queue.delete(added.getId());
+        assertEquals(0, queue.getPendingCount());
+
+        queue.update(41, person("First", "coalesce.edit@example.com"));
+        queue.update(41, person("Second\tTab", "coalesce.edit@example.com"));
+        assertEquals(1, queue.getPendingCount());
+        assertEquals(5, Files.readAllLines(journal).size());
+
+        // A restart replays the journal and compacts it
+        WriteBehindQueue restarted = new WriteBehindQueue(db, journal, 1000);
+        assertEquals(1, restarted.restore());
+        assertEquals(1, Files.readAllLines(journal).size());
+        assertTrue(restarted.hasPending(41));
+        assertTrue(Files.readString(journal).contains("Second\\tTab"));
+        assertTrue(restarted.insert(person("Next", "coalesce.next@example.com")).getId() < 0);
+    }
+
+    @Test
+    public void testFlushSavesInsertsAndLaterEdits() throws Exception {
+        WriteBehindQueue queue = new WriteBehindQueue(db, tempDir.resolve("journal.txt"), 1000);
+        Map<Integer, Person> saved = new HashMap<>();
+        queue.setListener(listener(saved, new ArrayList<>()));
+
+        Person added = queue.insert(person("Flush", "flush.insert@example.com"));
+        assertEquals(1, queue.flush());
+        Person stored = saved.get(added.getId());
+        assertNotNull(stored);
+        assertTrue(stored.getId() > 0);
+
+        // The table may still use the temporary id for a moment
+        queue.update(added.getId(), person("Flushed", "flush.insert@example.com"));
+        assertEquals(1, queue.flush());
+        assertEquals("Flushed", db.findById(stored.getId()).getFirstName());
+
+        queue.delete(stored.getId());
+        queue.flush();
+        assertNull(db.findById(stored.getId()));
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testRejectedWritesAreReportedAsConflicts() throws Exception {
+        db.insertUser(person("Taken", "conflict.taken@example.com"));
+        WriteBehindQueue queue = new WriteBehindQueue(db, tempDir.resolve("journal.txt"), 1000);
+        Map<Integer, Person> saved = new HashMap<>();
+        List<WriteBehindQueue.PendingWrite> conflicts = new ArrayList<>();
+        queue.setListener(listener(saved, conflicts));
+
+        Person duplicate = queue.insert(person("Dup", "conflict.taken@example.com"));
+        Person fresh = queue.insert(person("Fresh", "conflict.fresh@example.com"));
+        queue.update(Integer.MAX_VALUE - 1, person("Gone", "conflict.gone@example.com"));
+        queue.flush();
+
+        assertEquals(2, conflicts.size());
+        assertTrue(saved.containsKey(fresh.getId()));
+        assertFalse(saved.containsKey(duplicate.getId()));
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testFailedFlushKeepsWritesForRetry() throws Exception {
+        AtomicBoolean offline = new AtomicBoolean(true);
+        UserRepository flaky = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (offline.get()) {
+                        throw new RuntimeException("server unreachable");
+                    }
+                    try {
+                        return method.invoke(db, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        Path journal = tempDir.resolve("journal.txt");
+        WriteBehindQueue queue = new WriteBehindQueue(flaky, journal, 1000);
+        Map<Integer, Person> saved = new HashMap<>();
+        queue.setListener(listener(saved, new ArrayList<>()));
+
+        Person added = queue.insert(person("Retry", "retry.insert@example.com"));
+        assertEquals(0, queue.flush());
+        assertEquals(1, queue.getPendingCount());
+        assertEquals(1, Files.readAllLines(journal).size());
+
+        // Edited while offline: still a single insert with the latest values
+        queue.update(added.getId(), person("Retried", "retry.insert@example.com"));
+        offline.set(false);
+        assertEquals(1, queue.flush());
+        assertEquals("Retried", db.findById(saved.get(added.getId()).getId()).getFirstName());
+        assertEquals(0, Files.readAllLines(journal).size());
+    }
+
+    @Test
+    public void testBulkUpdateAndDeleteFlushTogether() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            db.insertUser(person("Bulk" + (char) ('a' + i), "bulk" + i + "@example.com"));
+            ids.add(db.retrieveId(person("Bulk", "bulk" + i + "@example.com")));
+        }
+        Path journal = tempDir.resolve("journal.txt");
+        WriteBehindQueue queue = new WriteBehindQueue(db, journal, 1000);
+
+        queue.updateMajorAndDepartment(ids, "Mathematics", null);
+        queue.deleteAll(ids.subList(2, 4));
+        assertEquals(3, queue.getPendingCount());
+        assertEquals(3, Files.readAllLines(journal).size());
+        assertTrue(queue.hasPending(ids.get(0)));
+
+        assertEquals(3, queue.flush());
+        for (int id : ids.subList(0, 2)) {
+            Person stored = db.findById(id);
+            assertEquals("Mathematics", stored.getMajor());
+            assertEquals("CS", stored.getDepartment());
+        }
+        assertNull(db.findById(ids.get(2)));
+        assertNull(db.findById(ids.get(3)));
+        assertEquals(0, Files.readAllLines(journal).size());
+    }
+
+    @Test
+    public void testBulkUpdateMergesIntoQueuedWrites() throws Exception {
+        Path journal = tempDir.resolve("journal.txt");
+        WriteBehindQueue queue = new WriteBehindQueue(db, journal, 1000);
+
+        Person added = queue.insert(person("Merge", "bulk.merge@example.com"));
+        queue.delete(52);
+        queue.updateMajorAndDepartment(List.of(added.getId(), 52, 53, 54), null, "Engineering");
+        // The insert takes the new department, the deleted row is dropped, 53 and 54 stay one write
+        assertEquals(3, queue.getPendingCount());
+        assertFalse(queue.hasPending(55));
+        assertTrue(queue.hasPending(54));
+
+        WriteBehindQueue restarted = new WriteBehindQueue(db, journal, 1000);
+        assertEquals(3, restarted.restore());
+        String compacted = Files.readString(journal);
+        assertTrue(compacted.contains("BULK_UPDATE\t2\t\\N\tEngineering\t53,54"));
+        assertTrue(compacted.contains("INSERT\t" + added.getId() + "\tMerge\tQueue\tEngineering"));
+    }
+
+    @Test
+    public void testConcurrentEditsToOtherColumnsAreMerged() throws Exception {
+        Person base = db.insertUser(person("Base", "version.merge@example.com"));
+        base = db.findById(base.getId());
+        WriteBehindQueue queue = new WriteBehindQueue(db, tempDir.resolve("journal.txt"), 1000);
+        List<Person> updated = new ArrayList<>();
+        List<WriteBehindQueue.PendingWrite> conflicts = new ArrayList<>();
+        queue.setListener(listener(new HashMap<>(), conflicts, updated));
+
+        // Another client changes the major first
+        Person theirs = copy(base);
+        theirs.setMajor("Physics");
+        assertTrue(db.editUser(base.getId(), theirs));
+
+        // This edit, of the first name, was made on the original version
+        Person ours = copy(base);
+        ours.setFirstName("Merged");
+        queue.update(base.getId(), ours, base);
+        assertEquals(1, queue.flush());
+
+        Person stored = db.findById(base.getId());
+        assertEquals("Merged", stored.getFirstName());
+        assertEquals("Physics", stored.getMajor());
+        assertEquals(base.getVersion() + 2, stored.getVersion());
+        assertTrue(conflicts.isEmpty());
+        assertEquals(stored.getVersion(), updated.get(0).getVersion());
+    }
+
+    @Test
+    public void testConcurrentEditsToTheSameColumnConflict() throws Exception {
+        Person base = db.findById(db.insertUser(person("Base", "version.clash@example.com")).getId());
+        Person theirs = copy(base);
+        theirs.setFirstName("Theirs");
+        assertTrue(db.editUser(base.getId(), theirs));
+
+        // A stale version is rejected with the current row
+        Person stale = copy(base);
+        stale.setFirstName("Ours");
+        UpdateConflictException error = assertThrows(UpdateConflictException.class,
+                () -> db.editUser(base.getId(), stale));
+        assertEquals("Theirs", error.getCurrent().getFirstName());
+
+        WriteBehindQueue queue = new WriteBehindQueue(db, tempDir.resolve("journal.txt"), 1000);
+        List<WriteBehindQueue.PendingWrite> conflicts = new ArrayList<>();
+        queue.setListener(listener(new HashMap<>(), conflicts, new ArrayList<>()));
+        queue.update(base.getId(), stale, base);
+        queue.flush();
+
+        assertEquals(1, conflicts.size());
+        assertEquals("Theirs", db.findById(base.getId()).getFirstName());
+    }
+
+    @Test
+    public void testEditAfterBulkUpdateIsBasedOnIt() throws Exception {
+        Person row = db.insertUser(person("Bulk", "version.bulk@example.com"));
+        row = db.findById(row.getId());
+        WriteBehindQueue queue = new WriteBehindQueue(db, tempDir.resolve("journal.txt"), 1000);
+        List<WriteBehindQueue.PendingWrite> conflicts = new ArrayList<>();
+        queue.setListener(listener(new HashMap<>(), conflicts, new ArrayList<>()));
+
+        queue.updateMajorAndDepartment(List.of(row.getId()), "Chemistry", null);
+        Person shown = copy(row);
+        shown.setMajor("Chemistry");
+        Person edited = copy(shown);
+        edited.setLastName("Edited");
+        queue.update(row.getId(), edited, shown);
+        assertEquals(2, queue.flush());
+
+        Person stored = db.findById(row.getId());
+        assertEquals("Chemistry", stored.getMajor());
+        assertEquals("Edited", stored.getLastName());
+        assertTrue(conflicts.isEmpty());
+    }
+
+    @Test
+    public void testOnlyCurrentJournalLinesAreRestored() throws Exception {
+        Path journal = tempDir.resolve("journal.txt");
+        Files.write(journal, List.of(
+                // No version column
+                "UPDATE\t61\tOld\tQueue\tCS\tSoftware\tjournal.old@example.com\t",
+                "UPDATE\t62\tCurrent\tQueue\tCS\tSoftware\tjournal.current@example.com\t\t3"));
+
+        WriteBehindQueue queue = new WriteBehindQueue(db, journal, 1000);
+        assertEquals(1, queue.restore());
+        assertFalse(queue.hasPending(61));
+        assertTrue(queue.hasPending(62));
+    }
+
+    private static Person copy(Person person) {
+        Person copy = new Person(person.getId(), person.getFirstName(), person.getLastName(), person.getDepartment(),
+                person.getMajor(), person.getEmail(), person.getImageURL());
+        copy.setVersion(person.getVersion());
+        return copy;
+    }
+
+    private static Person person(String firstName, String email) {
+        return new Person(firstName, "Queue", "CS", "Software", email, "");
+    }
+
+    private static WriteBehindQueue.Listener listener(Map<Integer, Person> saved,
+                                                      List<WriteBehindQueue.PendingWrite> conflicts) {
+        return listener(saved, conflicts, new ArrayList<>());
+    }
+
+    private static WriteBehindQueue.Listener listener(Map<Integer, Person> saved,
+                                                      List<WriteBehindQueue.PendingWrite> conflicts,
+                                                      List<Person> updated) {
+        return new WriteBehindQueue.Listener() {
+            @Override
+            public void onInserted(int tempId, Person person) {
+                saved.put(tempId, person);
+            }
+
+            @Override
+            public void onUpdated(Person person) {
+                updated.add(person);
+            }
+
+            @Override
+            public void onConflict(WriteBehindQueue.PendingWrite write, Exception error) {
+                conflicts.add(write);
+            }
+
+            @Override
+            public void onFlushed(int applied, int pending) {
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package viewmodel;
+
+import dao.ChangeSet;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedUserLoaderTest {
+
+    private final ObservableList<Person> window = FXCollections.observableArrayList();
+    // Two rows per page, at most four in the window
+    private final PagedUserLoader loader = new PagedUserLoader(null, window, 2, 4);
+
+    @Test
+    public void testAppendDropsRowsFromTheTop() {
+        loader.appendPage(people(1, 2));
+        loader.appendPage(people(3, 4));
+        loader.appendPage(people(5, 6));
+
+        assertEquals(List.of(3, 4, 5, 6), ids());
+        assertFalse(loader.isAtEnd());
+        assertFalse(loader.isFullyLoaded());
+    }
+
+    @Test
+    public void testPrependDropsRowsFromTheBottom() {
+        loader.appendPage(people(5, 6));
+        loader.prependPage(people(3, 4));
+        loader.prependPage(people(1, 2));
+
+        assertEquals(List.of(1, 2, 3, 4), ids());
+
+        // The bottom rows were dropped, so the next page is read after them again
+        loader.appendPage(people(5));
+        assertEquals(List.of(2, 3, 4, 5), ids());
+        assertTrue(loader.isAtEnd());
+    }
+
+    @Test
+    public void testTrimmingKeepsUnsavedRowsAndTheCursorOnSavedOnes() {
+        loader.appendPage(people(5, 6));
+        loader.setPendingWrites(id -> id == 6);
+        // A local insert waiting for the write-behind queue
+        window.add(person(-1));
+
+        loader.prependPage(people(3, 4));
+
+        assertEquals(List.of(3, 4, 6, -1), ids());
+
+        // The next page starts after 4, and 6 is not added a second time
+        loader.appendPage(people(5, 6));
+        assertEquals(List.of(4, 6, -1, 5), ids());
+    }
+
+    @Test
+    public void testNothingIsDroppedWhileTheViewIsSortedOrFiltered() {
+        boolean[] inOrder = {false};
+        loader.setInWindowOrder(() -> inOrder[0]);
+        loader.appendPage(people(3, 4));
+        loader.appendPage(people(5, 6));
+        loader.appendPage(people(7, 8));
+        loader.prependPage(people(1, 2));
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), ids());
+
+        // Once the view follows the window again the next page trims it back
+        inOrder[0] = true;
+        loader.appendPage(people(9, 10));
+        assertEquals(List.of(7, 8, 9, 10), ids());
+    }
+
+    @Test
+    public void testApplyChangesReplacesUpdatedAndDropsDeletedRows() {
+        loader.appendPage(people(1, 2, 3));
+        Person unchanged = window.get(0);
+        Person renamed = person(2);
+        renamed.setFirstName("Renamed");
+        renamed.setVersion(1);
+
+        assertTrue(loader.applyChanges(new ChangeSet(List.of(renamed), List.of(3), null)));
+
+        assertEquals(List.of(1, 2), ids());
+        assertSame(unchanged, window.get(0));
+        assertSame(renamed, window.get(1));
+        // The same values again change nothing
+        assertFalse(loader.applyChanges(new ChangeSet(List.of(person(1)), List.of(), null)));
+    }
+
+    @Test
+    public void testApplyChangesAppendsNewRowsOnlyAtTheEnd() {
+        loader.appendPage(people(1, 2));
+        assertFalse(loader.applyChanges(new ChangeSet(people(7), List.of(), null)));
+        assertEquals(List.of(1, 2), ids());
+
+        loader.appendPage(people(3));
+        assertTrue(loader.isAtEnd());
+        assertTrue(loader.applyChanges(new ChangeSet(people(7, 8), List.of(8), null)));
+        assertEquals(List.of(1, 2, 3, 7), ids());
+    }
+
+    private static Person person(int id) {
+        return new Person(id, "First" + id, "Last" + id, "Science", "CSC", "user" + id + "@example.com", "");
+    }
+
+    private static List<Person> people(int... ids) {
+        List<Person> people = new ArrayList<>();
+        for (int id : ids) {
+            people.add(person(id));
+        }
+        return people;
+    }
+
+    private List<Integer> ids() {
+        return window.stream().map(Person::getId).toList();
+    }
+}